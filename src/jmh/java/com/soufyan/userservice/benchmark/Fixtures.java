@@ -0,0 +1,27 @@
+package com.soufyan.userservice.benchmark;
+
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.model.User;
+
+final class Fixtures {
+
+    static final String JWT_SECRET = "benchmarkSecretKeyForJmhRunsOnly1234567890abcdef";
+
+    private Fixtures() {
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setEmail("user" + id + "@example.com");
+        user.setPhone("+1234567890");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuuJ1G5e7qz3dKzSg3FhY3ZbKZ0r0b0xW");
+        user.setCountry("USA");
+        user.setCity("New York");
+        user.setStreet("123 Main St");
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,54 @@
+package com.soufyan.userservice.benchmark;
+
+import com.soufyan.userservice.config.JwtAuthFilter;
+import com.soufyan.userservice.config.JwtRevocationList;
+import com.soufyan.userservice.config.JwtTokenCache;
+import com.soufyan.userservice.config.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through the filter, with the verified-token cache
+ * off (signature check every time) and on (steady-state cache hits).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean tokenCache;
+
+    private JwtAuthFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(Fixtures.JWT_SECRET, 3_600_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter = new JwtAuthFilter(jwtUtil, new JwtTokenCache(tokenCache, 10_000, registry),
+                new JwtRevocationList(registry), registry);
+        authorization = "Bearer " + jwtUtil.generateToken("john@example.com", 42L, "USER");
+    }
+
+    @Benchmark
+    public Object doFilter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
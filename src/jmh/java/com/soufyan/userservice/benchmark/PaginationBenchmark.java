@@ -0,0 +1,89 @@
+package com.soufyan.userservice.benchmark;
+
+import com.soufyan.userservice.UserserviceApplication;
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.UserRepository;
+import com.soufyan.userservice.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offset ({@code /user/all?page=}) versus keyset ({@code /user/all?cursor=})
+ * pagination through the service against an in-memory H2 table. The offset
+ * variant includes the count query the Page response needs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int BATCH = 10_000;
+
+    @Param({"200000"})
+    public int rows;
+
+    @Param({"0", "100", "1000"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private long afterId;
+
+    @Setup
+    public void setUp() {
+        // Command-line arguments, so they override application.yml and the test profile.
+        // H2 would otherwise answer a repeated query from its result cache.
+        context = new SpringApplicationBuilder(UserserviceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;OPTIMIZE_REUSE_RESULTS=FALSE",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--password.bcrypt.strength=4",
+                        "--user.cache.enabled=false");
+        userService = context.getBean(UserService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<User> batch = new ArrayList<>(BATCH);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(Fixtures.user(i));
+            if (batch.size() == BATCH) {
+                userRepository.insertAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            userRepository.insertAll(batch);
+        }
+        // The cursor a client holds after reading `page` pages
+        afterId = (long) page * PAGE_SIZE;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<UserDto> offset() {
+        return userService.getAllUsers(PageRequest.of(page, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<UserDto> keyset() {
+        return userService.getUsersAfter(afterId, PAGE_SIZE + 1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.soufyan.userservice.benchmark;
+
+import com.soufyan.userservice.config.PasswordConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code matches} through the production encoder bean, including the hop to the
+ * bounded hashing pool, at the application's default cost; pass
+ * {@code -p strength=10} to compare another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"12"})
+    public int strength;
+
+    private ThreadPoolExecutor executor;
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        PasswordConfig config = new PasswordConfig();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor = config.passwordHashingExecutor(0, 16, registry);
+        encoder = config.passwordEncoder("bcrypt", strength, false, 250, 10, 14, executor, registry);
+        hash = encoder.encode("password123");
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("password123", hash);
+    }
+}
@@ -0,0 +1,83 @@
+package com.soufyan.userservice.benchmark;
+
+import com.soufyan.userservice.UserserviceApplication;
+import com.soufyan.userservice.config.JwtUtil;
+import com.soufyan.userservice.dto.LoginUserDto;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.UserRepository;
+import com.soufyan.userservice.service.RefreshTokenService;
+import com.soufyan.userservice.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of renewing an access token by logging in again versus presenting a
+ * refresh token, through the same service calls {@code /auth/login} and
+ * {@code /auth/refresh} make, against H2. Login includes issuing the refresh
+ * token; refresh includes rotating it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRenewalBenchmark {
+
+    @Param({"10"})
+    public int strength;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private RefreshTokenService refreshTokenService;
+    private JwtUtil jwtUtil;
+    private LoginUserDto login;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserserviceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--password.bcrypt.strength=" + strength);
+        userService = context.getBean(UserService.class);
+        refreshTokenService = context.getBean(RefreshTokenService.class);
+        jwtUtil = context.getBean(JwtUtil.class);
+
+        User user = Fixtures.user(1);
+        user.setId(0);
+        user.setPassword(context.getBean(PasswordEncoder.class).encode("password123"));
+        user = context.getBean(UserRepository.class).save(user);
+        login = new LoginUserDto(user.getEmail(), "password123");
+        refreshToken = refreshTokenService.issue(user);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String login() {
+        User user = userService.authenticateUser(login);
+        refreshTokenService.issue(user);
+        return jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().toString());
+    }
+
+    @Benchmark
+    public String refresh() {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        refreshToken = rotation.refreshToken();
+        User user = rotation.user();
+        return jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().toString());
+    }
+}
@@ -0,0 +1,38 @@
+package com.soufyan.userservice.benchmark;
+
+import com.soufyan.userservice.dto.UpdateUserDto;
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.mapper.UserMapper;
+import com.soufyan.userservice.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private User user;
+    private UpdateUserDto update;
+
+    @Setup
+    public void setUp() {
+        user = Fixtures.user(1L);
+        update = new UpdateUserDto("Jane", "Smith", "Jane.Smith@Example.com", "+9876543210", "Canada", "Toronto", "456 Oak Ave");
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return UserMapper.toDto(user);
+    }
+
+    @Benchmark
+    public User updateUserFromDto() {
+        UserMapper.updateUserFromDto(update, user);
+        return user;
+    }
+}
@@ -0,0 +1,39 @@
+package com.soufyan.userservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies of one endpoint in microseconds, up to one minute at three
+ * significant digits, plus the number of failed requests.
+ */
+class EndpointStats {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_MICROS, 3);
+    private final AtomicLong errors = new AtomicLong();
+
+    void record(long latencyNanos, boolean success) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_MICROS));
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        errors.set(0);
+    }
+
+    Histogram latencies() {
+        return latencies;
+    }
+
+    long errors() {
+        return errors.get();
+    }
+}
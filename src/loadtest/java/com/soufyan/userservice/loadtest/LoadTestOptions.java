@@ -0,0 +1,94 @@
+package com.soufyan.userservice.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options of the load test. Arguments it does not recognise are
+ * passed to the application as Spring properties, e.g.
+ * {@code --password.bcrypt.strength=10}.
+ */
+record LoadTestOptions(
+        int users,
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        int rate,
+        boolean virtualThreads,
+        Map<Operation, Integer> mix,
+        String output,
+        List<String> applicationArgs) {
+
+    static final String USAGE = """
+            Options (all optional):
+              --users=10000            users seeded before the run
+              --warmup=10s             traffic not recorded
+              --duration=60s           measured traffic
+              --concurrency=64         closed loop: clients each sending back to back
+              --rate=0                 open loop: requests per second across all clients
+                                       (latency is measured from the scheduled send time)
+              --virtual-threads=false  run Tomcat on virtual threads
+              --mix=profile=60,list=25,update=8,login=5,register=2
+              --output=target/loadtest file prefix for the JSON summary and .hgrm files
+              --<spring.property>=...  passed to the application""";
+
+    static LoadTestOptions parse(String[] args) {
+        int users = 10_000;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        int concurrency = 64;
+        int rate = 0;
+        boolean virtualThreads = false;
+        Map<Operation, Integer> mix = parseMix("profile=60,list=25,update=8,login=5,register=2");
+        String output = "target/loadtest";
+        List<String> applicationArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg + "\n" + USAGE);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "users" -> users = Integer.parseInt(value);
+                case "warmup" -> warmup = parseDuration(value);
+                case "duration" -> duration = parseDuration(value);
+                case "concurrency" -> concurrency = Integer.parseInt(value);
+                case "rate" -> rate = Integer.parseInt(value);
+                case "virtual-threads" -> virtualThreads = Boolean.parseBoolean(value);
+                case "mix" -> mix = parseMix(value);
+                case "output" -> output = value;
+                default -> applicationArgs.add(arg);
+            }
+        }
+        return new LoadTestOptions(users, warmup, duration, concurrency, rate, virtualThreads, mix, output,
+                List.copyOf(applicationArgs));
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] kv = part.split("=");
+            mix.put(Operation.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    // Accepts 90s, 2m or plain seconds
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("s")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+}
@@ -0,0 +1,253 @@
+package com.soufyan.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.soufyan.userservice.UserserviceApplication;
+import com.soufyan.userservice.config.JwtUtil;
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.UserRepository;
+import com.soufyan.userservice.service.EmailFilter;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the service on the in-memory H2 test profile, seeds users and drives a
+ * mixed workload over loopback HTTP, then reports per-endpoint throughput and
+ * HdrHistogram latency percentiles. Needs no network or external database.
+ * <p>
+ * Run with {@code mvn -Ploadtest verify -DskipTests -Dloadtest.args="--users=10000 --concurrency=64"}.
+ */
+public final class LoadTestRunner {
+
+    private static final int SEED_BATCH = 1_000;
+
+    private final LoadTestOptions options;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    private LoadTestRunner(LoadTestOptions options) {
+        this.options = options;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        try (ConfigurableApplicationContext context = start(options)) {
+            new LoadTestRunner(options).run(context);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--spring.threads.virtual.enabled=" + options.virtualThreads()));
+        // Later arguments win, so explicit application properties override the defaults above
+        args.addAll(options.applicationArgs());
+        return new SpringApplicationBuilder(UserserviceApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    private void run(ConfigurableApplicationContext context) throws Exception {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        List<Workload.SeededUser> users = seed(context);
+        Workload workload = new Workload("http://localhost:" + port, users, options.mix());
+
+        System.out.printf("Running %s for %ds after %ds warmup, %s threads in Tomcat%n",
+                options.rate() > 0 ? options.rate() + " req/s" : options.concurrency() + " clients",
+                options.duration().toSeconds(), options.warmup().toSeconds(),
+                options.virtualThreads() ? "virtual" : "platform");
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        Thread resetter = Thread.ofVirtual().start(() -> {
+            LockSupport.parkNanos(measureFrom - System.nanoTime());
+            stats.values().forEach(EndpointStats::reset);
+        });
+        if (options.rate() > 0) {
+            runOpenLoop(workload, end);
+        } else {
+            runClosedLoop(workload, end);
+        }
+        resetter.join();
+        report(options.duration().toNanos());
+    }
+
+    private List<Workload.SeededUser> seed(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        EmailFilter emailFilter = context.getBean(EmailFilter.class);
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+        // One hash for everyone: hashing each seeded user would take minutes at production cost
+        String hash = context.getBean(PasswordEncoder.class).encode(Workload.PASSWORD);
+
+        long started = System.nanoTime();
+        List<User> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < options.users(); i++) {
+            User user = new User();
+            user.setFirstName("Seed");
+            user.setLastName("User" + i);
+            user.setEmail("user" + i + "@loadtest.local");
+            user.setPhone("+1234567890");
+            user.setPassword(hash);
+            user.setCountry("USA");
+            user.setCity("New York");
+            user.setStreet("1 Main St");
+            user.setRole(Role.USER);
+            emailFilter.add(user.getEmail());
+            batch.add(user);
+            if (batch.size() == SEED_BATCH || i == options.users() - 1) {
+                userRepository.insertAll(batch);
+                batch.clear();
+            }
+        }
+        List<Workload.SeededUser> users = userRepository.findDtoByIdGreaterThan(0, Limit.of(options.users())).stream()
+                .map(dto -> new Workload.SeededUser(dto.getId(), dto.getEmail(),
+                        jwtUtil.generateToken(dto.getEmail(), dto.getId(), dto.getRole().name())))
+                .toList();
+        System.out.printf("Seeded %d users in %d ms%n", users.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return users;
+    }
+
+    // Each client waits for its answer before sending the next request
+    private void runClosedLoop(Workload workload, long end) throws InterruptedException {
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < options.concurrency(); i++) {
+            clients.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < end) {
+                    Operation operation = workload.nextOperation();
+                    long sent = System.nanoTime();
+                    send(workload, operation, sent);
+                }
+            }));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+    }
+
+    // Requests leave on a fixed schedule whether or not earlier ones returned;
+    // latency counts from the scheduled time, so a stalled server is not hidden
+    // by the generator slowing down (coordinated omission)
+    private void runOpenLoop(Workload workload, long end) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long scheduled = System.nanoTime(); scheduled < end; scheduled += interval) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long intended = scheduled;
+                Operation operation = workload.nextOperation();
+                senders.execute(() -> send(workload, operation, intended));
+            }
+        }
+    }
+
+    private void send(Workload workload, Operation operation, long startedAt) {
+        boolean success;
+        try {
+            success = workload.send(operation);
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.get(operation).record(System.nanoTime() - startedAt, success);
+    }
+
+    private void report(long measuredNanos) throws IOException {
+        double seconds = measuredNanos / 1e9;
+        Histogram total = new Histogram(stats.get(Operation.PROFILE).latencies().getHighestTrackableValue(), 3);
+        long totalErrors = 0;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+
+        PrintStream out = System.out;
+        out.printf("%n%-20s %9s %9s %9s %9s %9s %9s %9s %7s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (Map.Entry<Operation, EndpointStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().latencies().copy();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += entry.getValue().errors();
+            printRow(out, entry.getKey().label, histogram, entry.getValue().errors(), seconds);
+            endpoints.put(entry.getKey().label, row(histogram, entry.getValue().errors(), seconds));
+            writeDistribution(entry.getKey().name().toLowerCase(), histogram);
+        }
+        printRow(out, "total", total, totalErrors, seconds);
+
+        summary.put("users", options.users());
+        summary.put("mode", options.rate() > 0 ? "rate" : "concurrency");
+        summary.put("rate", options.rate());
+        summary.put("concurrency", options.concurrency());
+        summary.put("virtualThreads", options.virtualThreads());
+        summary.put("durationSeconds", seconds);
+        summary.put("endpoints", endpoints);
+        summary.put("total", row(total, totalErrors, seconds));
+        Path json = Path.of(options.output() + "-result.json");
+        Files.createDirectories(json.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), summary);
+        out.printf("%nSummary written to %s%n", json);
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram h, long errors, double seconds) {
+        out.printf("%-20s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n", label, h.getTotalCount(),
+                h.getTotalCount() / seconds, millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9),
+                h.getMaxValue() / 1000.0, errors);
+    }
+
+    private static Map<String, Object> row(Histogram h, long errors, double seconds) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", h.getTotalCount());
+        row.put("throughput", h.getTotalCount() / seconds);
+        row.put("p50Ms", millis(h, 50));
+        row.put("p90Ms", millis(h, 90));
+        row.put("p99Ms", millis(h, 99));
+        row.put("p999Ms", millis(h, 99.9));
+        row.put("maxMs", h.getMaxValue() / 1000.0);
+        row.put("errors", errors);
+        return row;
+    }
+
+    // Full percentile distribution in milliseconds, plottable with HdrHistogram's plotFiles.html
+    private void writeDistribution(String name, Histogram histogram) throws IOException {
+        Path file = Path.of(options.output() + "-" + name + ".hgrm");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
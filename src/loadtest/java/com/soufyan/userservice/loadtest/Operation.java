@@ -0,0 +1,15 @@
+package com.soufyan.userservice.loadtest;
+
+enum Operation {
+    REGISTER("POST /auth/register"),
+    LOGIN("POST /auth/login"),
+    PROFILE("GET /user/"),
+    LIST("GET /user/all"),
+    UPDATE("PUT /user/update");
+
+    final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+}
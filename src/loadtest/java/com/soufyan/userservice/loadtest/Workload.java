@@ -0,0 +1,98 @@
+package com.soufyan.userservice.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Sends single requests of each kind on behalf of seeded users. Every seeded
+ * user has the password {@link #PASSWORD} and a pre-minted token.
+ */
+class Workload {
+
+    static final String PASSWORD = "password123";
+
+    private static final int LIST_PAGE_SIZE = 20;
+    private static final int LIST_MAX_PAGE = 50;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final List<SeededUser> users;
+    private final Operation[] weighted;
+    private final AtomicLong registrations = new AtomicLong();
+
+    Workload(String baseUrl, List<SeededUser> users, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.weighted = mix.entrySet().stream()
+                .flatMap(e -> Stream.generate(e::getKey).limit(e.getValue()))
+                .toArray(Operation[]::new);
+    }
+
+    Operation nextOperation() {
+        return weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+    }
+
+    /**
+     * Sends one request and returns whether it got a 2xx answer.
+     */
+    boolean send(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SeededUser user = users.get(random.nextInt(users.size()));
+        HttpRequest request = switch (operation) {
+            case REGISTER -> json("/auth/register", null).POST(body(registration())).build();
+            case LOGIN -> json("/auth/login", null)
+                    .POST(body("{\"email\":\"" + user.email() + "\",\"password\":\"" + PASSWORD + "\"}"))
+                    .build();
+            case PROFILE -> json("/user/", user.token()).GET().build();
+            case LIST -> json("/user/all?page=" + random.nextInt(LIST_MAX_PAGE) + "&size=" + LIST_PAGE_SIZE, user.token())
+                    .GET().build();
+            case UPDATE -> json("/user/update", user.token()).PUT(body(update(user, random.nextInt(1000)))).build();
+        };
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        return response.statusCode() / 100 == 2;
+    }
+
+    private HttpRequest.Builder json(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static HttpRequest.BodyPublisher body(String json) {
+        return HttpRequest.BodyPublishers.ofString(json);
+    }
+
+    private String registration() {
+        long n = registrations.incrementAndGet();
+        return "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"email\":\"new" + n + "@loadtest.local\","
+                + "\"phone\":\"+1234567890\",\"password\":\"" + PASSWORD + "\",\"country\":\"USA\","
+                + "\"city\":\"New York\",\"street\":\"1 Main St\",\"role\":\"USER\"}";
+    }
+
+    // Keeps the email so the token and the seeded data stay valid
+    private static String update(SeededUser user, int round) {
+        return "{\"firstName\":\"Load" + round + "\",\"lastName\":\"Test\",\"email\":\"" + user.email() + "\","
+                + "\"phone\":\"+1234567890\",\"country\":\"USA\",\"city\":\"New York\",\"street\":\"1 Main St\"}";
+    }
+
+    record SeededUser(long id, String email, String token) {
+    }
+}
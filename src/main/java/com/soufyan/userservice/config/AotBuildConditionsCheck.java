@@ -0,0 +1,50 @@
+package com.soufyan.userservice.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fails the startup of an ahead-of-time processed build when a property that
+ * switches beans on or off differs from what the build saw. The generated bean
+ * definitions were fixed by {@code mvn -Paot package}, so without this check
+ * setting, say, VIRTUAL_THREADS_ENABLED on the image would silently do nothing.
+ * Runs once all singletons exist, before the web server starts.
+ */
+@Component
+public class AotBuildConditionsCheck implements SmartInitializingSingleton {
+
+    private final Environment environment;
+    private final ListableBeanFactory beanFactory;
+
+    public AotBuildConditionsCheck(Environment environment, ListableBeanFactory beanFactory) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        // Each bean is conditional on the property, like Boot's own virtual thread and data source setup
+        check("spring.threads.virtual.enabled",
+                environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false),
+                VirtualThreadPinningMonitor.class);
+        check("spring.datasource.replica.jdbc-url",
+                environment.containsProperty("spring.datasource.replica.jdbc-url"),
+                ReplicaDataSourceConfig.class);
+    }
+
+    private void check(String property, boolean enabled, Class<?> conditionalBean) {
+        boolean built = beanFactory.getBeanNamesForType(conditionalBean, false, false).length > 0;
+        if (enabled != built) {
+            throw new IllegalStateException(property + (enabled ? " is set" : " is not set")
+                    + " but this AOT build was processed " + (built ? "with" : "without") + " it."
+                    + " Rebuild with -Dspring-boot.aot.jvmArguments=\"-D" + property + "=...\" to match,"
+                    + " or start without -Dspring.aot.enabled=true.");
+        }
+    }
+}
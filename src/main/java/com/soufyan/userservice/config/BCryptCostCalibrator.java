@@ -0,0 +1,56 @@
+package com.soufyan.userservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Finds the highest BCrypt cost whose hash time on this host stays within a
+ * latency budget. Each cost step doubles the work, so the search is short.
+ * Only a suggestion for {@code password.bcrypt.strength}: the result depends on
+ * how loaded the host is while it runs.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration budget, int minCost, int maxCost, int configuredCost) {
+        // Warm up the JIT so the first measured cost is not penalised
+        BCryptPasswordEncoder warmUp = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 10; i++) {
+            warmUp.encode(SAMPLE_PASSWORD);
+        }
+
+        int cost = minCost;
+        long nanos = measure(cost);
+        while (cost < maxCost && nanos * 2 <= budget.toNanos()) {
+            cost++;
+            nanos = measure(cost);
+        }
+        if (nanos > budget.toNanos() && cost > minCost) {
+            cost--;
+        }
+        log.info("BCrypt cost {} fits a {} ms budget on this host (last sample {} ms); "
+                        + "password.bcrypt.strength is {}",
+                cost, budget.toMillis(), Duration.ofNanos(nanos).toMillis(), configuredCost);
+        return cost;
+    }
+
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
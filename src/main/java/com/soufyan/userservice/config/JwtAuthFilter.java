@@ -1,5 +1,11 @@
 package com.soufyan.userservice.config;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,12 +15,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -22,9 +28,35 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
 
     private final JwtUtil jwtUtil;
-
-    public JwtAuthFilter(JwtUtil jwtUtil) {
+    private final JwtTokenCache tokenCache;
+    private final JwtRevocationList revocationList;
+    private final Timer cachedTimer;
+    private final Timer validTimer;
+    private final Timer expiredTimer;
+    private final Timer badSignatureTimer;
+    private final Timer malformedTimer;
+    private final Timer revokedTimer;
+    private final Timer errorTimer;
+
+    public JwtAuthFilter(JwtUtil jwtUtil, JwtTokenCache tokenCache, JwtRevocationList revocationList,
+                         MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
+        this.cachedTimer = verificationTimer("cached", meterRegistry);
+        this.validTimer = verificationTimer("valid", meterRegistry);
+        this.expiredTimer = verificationTimer("expired", meterRegistry);
+        this.badSignatureTimer = verificationTimer("bad_signature", meterRegistry);
+        this.malformedTimer = verificationTimer("malformed", meterRegistry);
+        this.revokedTimer = verificationTimer("revoked", meterRegistry);
+        this.errorTimer = verificationTimer("error", meterRegistry);
+    }
+
+    private static Timer verificationTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("jwt.verification")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @Override
@@ -36,49 +68,81 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         String authHeader = request.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+        if (authHeader != null && authHeader.startsWith("Bearer ") &&
+                SecurityContextHolder.getContext().getAuthentication() == null) {
 
             String token = authHeader.substring(7);
 
-            try {
-                String username = jwtUtil.extractUsername(token);
-
-                if (username != null &&
-                        SecurityContextHolder.getContext().getAuthentication() == null &&
-                        jwtUtil.isTokenValid(token, username)) {
+            JwtClaims claims = verify(token);
 
-                    String role = jwtUtil.extractRole(token);
+            if (claims != null && claims.getUsername() != null && claims.getRole() != null) {
 
-                    if (!role.startsWith("ROLE_")) {
-                        role = "ROLE_" + role;
-                    }
+                String username = claims.getUsername();
+                String role = claims.getRole();
 
-                    SimpleGrantedAuthority authority =
-                            new SimpleGrantedAuthority(role);
+                if (!role.startsWith("ROLE_")) {
+                    role = "ROLE_" + role;
+                }
 
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    username,
-                                    null,
-                                    Collections.singletonList(authority)
-                            );
+                SimpleGrantedAuthority authority =
+                        new SimpleGrantedAuthority(role);
 
-                    authentication.setDetails(
-                            new WebAuthenticationDetailsSource()
-                                    .buildDetails(request)
-                    );
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                username,
+                                null,
+                                Collections.singletonList(authority)
+                        );
 
-                    SecurityContextHolder.getContext()
-                            .setAuthentication(authentication);
+                // SecurityUtils.getCurrentUserId() reads the id back from the details
+                authentication.setDetails(claims.getUserId());
 
-                    log.debug("Authenticated user {} with role {}", username, role);
-                }
+                SecurityContextHolder.getContext()
+                        .setAuthentication(authentication);
 
-            } catch (Exception e) {
-                log.warn("JWT authentication failed: {}", e.getMessage());
+                log.debug("Authenticated user {} with role {}", username, role);
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    // Returns null for any invalid token; the request then continues unauthenticated
+    private JwtClaims verify(String token) {
+        long start = System.nanoTime();
+        boolean[] verified = new boolean[1];
+        try {
+            // Single signature check per request, none if the token was seen before
+            JwtClaims claims = tokenCache.get(token, t -> {
+                verified[0] = true;
+                return jwtUtil.parseClaims(t);
+            });
+            // Checked on every request, cached claims included: revocation does not evict them
+            if (revocationList.isRevoked(claims)) {
+                revokedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.debug("Rejected revoked token of user {}", claims.getUserId());
+                return null;
+            }
+            (verified[0] ? validTimer : cachedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (Exception e) {
+            failureTimer(e).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("JWT authentication failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Timer failureTimer(Exception e) {
+        if (e instanceof ExpiredJwtException) {
+            return expiredTimer;
+        }
+        if (e instanceof SignatureException) {
+            return badSignatureTimer;
+        }
+        if (e instanceof MalformedJwtException || e instanceof UnsupportedJwtException
+                || e instanceof IllegalArgumentException) {
+            return malformedTimer;
+        }
+        return errorTimer;
+    }
 }
@@ -0,0 +1,21 @@
+package com.soufyan.userservice.config;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Claims of a token whose signature and expiry have already been verified.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtClaims {
+    private final String username;
+    private final Long userId;
+    private final String role;
+    private final Date expiration;
+    // Null for tokens issued before ids were added
+    private final String id;
+    private final Date issuedAt;
+}
@@ -0,0 +1,26 @@
+package com.soufyan.userservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class JwtConfig {
+
+    @Bean
+    public JwtKeys jwtKeys(
+            @Value("${jwt.algorithm:HMAC}") String algorithm,
+            @Value("${jwt.secret:}") String secret,
+            @Value("${jwt.keys.directory:}") String directory,
+            @Value("${jwt.keys.active-kid:}") String activeKid) {
+        if ("HMAC".equals(algorithm)) {
+            return JwtKeys.hmac(secret);
+        }
+        if (directory.isBlank()) {
+            throw new IllegalStateException("jwt.keys.directory is required for jwt.algorithm " + algorithm);
+        }
+        return JwtKeys.load(algorithm, Path.of(directory), activeKid);
+    }
+}
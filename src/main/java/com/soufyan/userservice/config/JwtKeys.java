@@ -0,0 +1,168 @@
+package com.soufyan.userservice.config;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Keys used to sign and verify tokens: either one shared HMAC secret, or a set
+ * of RS256/EdDSA key pairs identified by {@code kid}. With key pairs, tokens
+ * name their key in the header, so several keys can be trusted at once and the
+ * public halves can be published for other services to verify tokens locally.
+ * <p>
+ * A key directory holds {@code <kid>.public.pem} (X.509) files, each optionally
+ * paired with a {@code <kid>.private.pem} (PKCS#8) file. Tokens are signed with
+ * the active kid; keys without a private half only verify tokens issued before
+ * a rotation, until those expire.
+ */
+public final class JwtKeys {
+
+    private static final String PRIVATE_SUFFIX = ".private.pem";
+    private static final String PUBLIC_SUFFIX = ".public.pem";
+
+    private final SecretKey secret;
+    private final SignatureAlgorithm algorithm;
+    private final String activeKid;
+    private final PrivateKey signingKey;
+    private final Map<String, PublicKey> verificationKeys;
+
+    private JwtKeys(SecretKey secret, SignatureAlgorithm algorithm, String activeKid, PrivateKey signingKey,
+                    Map<String, PublicKey> verificationKeys) {
+        this.secret = secret;
+        this.algorithm = algorithm;
+        this.activeKid = activeKid;
+        this.signingKey = signingKey;
+        this.verificationKeys = verificationKeys;
+    }
+
+    public static JwtKeys hmac(String secret) {
+        return new JwtKeys(Keys.hmacShaKeyFor(secret.getBytes()), null, null, null, Map.of());
+    }
+
+    /**
+     * Loads the key pairs in {@code directory}. A blank {@code activeKid} selects
+     * the highest kid, in string order, that has a private key.
+     */
+    public static JwtKeys load(String algorithmName, Path directory, String activeKid) {
+        SignatureAlgorithm algorithm;
+        String keyFactoryAlgorithm;
+        switch (algorithmName) {
+            case "RS256" -> {
+                algorithm = Jwts.SIG.RS256;
+                keyFactoryAlgorithm = "RSA";
+            }
+            case "EdDSA" -> {
+                algorithm = Jwts.SIG.EdDSA;
+                keyFactoryAlgorithm = "Ed25519";
+            }
+            default -> throw new IllegalStateException("Unsupported jwt.algorithm: " + algorithmName);
+        }
+
+        Map<String, PublicKey> publicKeys = new TreeMap<>();
+        Map<String, PrivateKey> privateKeys = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm);
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PUBLIC_SUFFIX)) {
+                    String kid = name.substring(0, name.length() - PUBLIC_SUFFIX.length());
+                    publicKeys.put(kid, keyFactory.generatePublic(new X509EncodedKeySpec(readPem(file))));
+                } else if (name.endsWith(PRIVATE_SUFFIX)) {
+                    String kid = name.substring(0, name.length() - PRIVATE_SUFFIX.length());
+                    privateKeys.put(kid, keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(file))));
+                }
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load JWT keys from " + directory, e);
+        }
+
+        for (String kid : privateKeys.keySet()) {
+            if (!publicKeys.containsKey(kid)) {
+                throw new IllegalStateException("JWT key " + kid + " has no " + kid + PUBLIC_SUFFIX);
+            }
+        }
+        String kid = activeKid == null || activeKid.isBlank()
+                ? privateKeys.keySet().stream().reduce((first, second) -> second).orElse(null)
+                : activeKid;
+        if (kid == null || !privateKeys.containsKey(kid)) {
+            throw new IllegalStateException("No private key for the active JWT key " + kid + " in " + directory);
+        }
+        return new JwtKeys(null, algorithm, kid, privateKeys.get(kid), Collections.unmodifiableMap(publicKeys));
+    }
+
+    JwtBuilder sign(JwtBuilder builder) {
+        if (secret != null) {
+            return builder.signWith(secret);
+        }
+        return builder.header().keyId(activeKid).and().signWith(signingKey, algorithm);
+    }
+
+    JwtParser parser() {
+        if (secret != null) {
+            return Jwts.parser().verifyWith(secret).build();
+        }
+        return Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                // Pinning the algorithm keeps a token from choosing how its own signature is checked
+                if (!algorithm.getId().equals(header.getAlgorithm())) {
+                    throw new SignatureException("Unexpected JWT algorithm " + header.getAlgorithm());
+                }
+                PublicKey key = verificationKeys.get(header.getKeyId());
+                if (key == null) {
+                    throw new SignatureException("Unknown JWT key id " + header.getKeyId());
+                }
+                return key;
+            }
+        }).build();
+    }
+
+    /**
+     * The public keys as a JWK set. Empty with a shared secret, which must never
+     * be published.
+     */
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        verificationKeys.forEach((kid, key) -> keys.add(new LinkedHashMap<>(Jwks.builder()
+                .key(key)
+                .id(kid)
+                .algorithm(algorithm.getId())
+                .publicKeyUse("sig")
+                .build())));
+        return Map.of("keys", keys);
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String pem = Files.readString(file, StandardCharsets.US_ASCII);
+        String base64 = pem.replaceAll("-----[A-Z ]+-----", "");
+        return Base64.getMimeDecoder().decode(base64);
+    }
+}
@@ -0,0 +1,78 @@
+package com.soufyan.userservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Revoked access tokens, held in memory so the check costs two hash lookups
+ * per request instead of a query. A token is revoked by its id, or together
+ * with every other token of its user issued up to a cutoff. Each entry is
+ * dropped once the last token it can match has expired on its own.
+ * <p>
+ * Filled from the database by {@code TokenRevocationService}.
+ */
+@Component
+public class JwtRevocationList {
+
+    private final Cache<String, Instant> revokedIds;
+    private final Cache<Long, Cutoff> cutoffs;
+
+    public JwtRevocationList(MeterRegistry meterRegistry) {
+        this.revokedIds = Caffeine.newBuilder()
+                .expireAfter(Expiry.writing((String id, Instant expiresAt) -> timeLeft(expiresAt)))
+                .build();
+        this.cutoffs = Caffeine.newBuilder()
+                .expireAfter(Expiry.writing((Long userId, Cutoff cutoff) -> timeLeft(cutoff.expiresAt)))
+                .build();
+        Gauge.builder("jwt.revocations", this, list -> list.revokedIds.estimatedSize())
+                .tag("kind", "token")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocations", this, list -> list.cutoffs.estimatedSize())
+                .tag("kind", "user")
+                .register(meterRegistry);
+    }
+
+    public void revokeId(String id, Instant expiresAt) {
+        revokedIds.put(id, expiresAt);
+    }
+
+    /**
+     * Revokes the user's tokens issued at or before {@code revokedBefore}, which
+     * is truncated to the second like {@code iat}. {@code expiresAt} is when
+     * the last of those tokens expires.
+     */
+    public void revokeUserBefore(long userId, Instant revokedBefore, Instant expiresAt) {
+        // Keep the later cutoff when a revocation is loaded again from the database
+        cutoffs.asMap().merge(userId, new Cutoff(revokedBefore.getEpochSecond(), expiresAt),
+                (current, next) -> current.epochSecond >= next.epochSecond ? current : next);
+    }
+
+    public boolean isRevoked(JwtClaims claims) {
+        if (claims.getId() != null && revokedIds.getIfPresent(claims.getId()) != null) {
+            return true;
+        }
+        if (claims.getUserId() == null) {
+            return false;
+        }
+        Cutoff cutoff = cutoffs.getIfPresent(claims.getUserId());
+        // A token without iat cannot prove it was issued after the cutoff
+        return cutoff != null
+                && (claims.getIssuedAt() == null || claims.getIssuedAt().getTime() / 1000 <= cutoff.epochSecond);
+    }
+
+    private static Duration timeLeft(Instant expiresAt) {
+        Duration left = Duration.between(Instant.now(), expiresAt);
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+
+    private record Cutoff(long epochSecond, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.soufyan.userservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Remembers the claims of already verified tokens so repeated requests with the
+ * same bearer token skip the signature check. Entries are keyed by a SHA-256
+ * digest of the token and never outlive the token's own expiration.
+ */
+@Component
+public class JwtTokenCache {
+
+    private final boolean enabled;
+    private final Cache<String, JwtClaims> cache;
+
+    public JwtTokenCache(@Value("${jwt.cache.enabled:true}") boolean enabled,
+                         @Value("${jwt.cache.maximum-size:10000}") long maximumSize,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.creating((String digest, JwtClaims claims) -> timeToLive(claims)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.tokens");
+    }
+
+    /**
+     * Returns the cached claims for the token, or verifies it with the given
+     * function and caches the result. Verification failures are not cached.
+     */
+    public JwtClaims get(String token, Function<String, JwtClaims> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+        return cache.get(digest(token), key -> verifier.apply(token));
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private static Duration timeToLive(JwtClaims claims) {
+        if (claims.getExpiration() == null) {
+            return Duration.ZERO;
+        }
+        long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(remaining, 0));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
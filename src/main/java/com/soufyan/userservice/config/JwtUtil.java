@@ -1,75 +1,75 @@
 package com.soufyan.userservice.config;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
-    @Value("${jwt.secret}")
-    private String SECRET_KEY;
-    @Value("${jwt.expiration}")
-    private long EXPIRATION_TIME;
+    private final long expirationTime;
 
-    
+    // Both are immutable and thread-safe, so they are built once instead of per call
+    private final JwtKeys keys;
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    @Autowired
+    public JwtUtil(JwtKeys keys, @Value("${jwt.expiration}") long expirationTime) {
+        this.expirationTime = expirationTime;
+        this.keys = keys;
+        this.parser = keys.parser();
+    }
+
+    public JwtUtil(String secretKey, long expirationTime) {
+        this(JwtKeys.hmac(secretKey), expirationTime);
     }
 
     public String generateToken(String username, Long userId, String role) {
-        return Jwts.builder()
+        long now = System.currentTimeMillis();
+        return keys.sign(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("userId", userId)
                 .claim("role", role)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expirationTime)))
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry of the token once and returns its claims.
+     * Throws a {@link JwtException} if the token is invalid or expired.
+     */
+    public JwtClaims parseClaims(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return new JwtClaims(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("role", String.class),
+                claims.getExpiration(),
+                claims.getId(),
+                claims.getIssuedAt()
+        );
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return parseClaims(token).getUsername();
     }
 
     public boolean isTokenValid(String token, String username) {
-        return username.equals(extractUsername(token)) && !isTokenExpired(token);
+        // The parser already rejects expired tokens
+        return username.equals(extractUsername(token));
     }
+
     public Long extractUserId(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("userId", Long.class);
+        return parseClaims(token).getUserId();
     }
 
     public String extractRole(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("role", String.class);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getExpiration()
-                .before(new Date());
+        return parseClaims(token).getRole();
     }
 }
@@ -1,15 +1,90 @@
 package com.soufyan.userservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class PasswordConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public ThreadPoolExecutor passwordHashingExecutor(
+            @Value("${password.hashing.threads:0}") int threads,
+            @Value("${password.hashing.queue-capacity:16}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "password.hashing", Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    // Bulk imports hash through their own threads, each waiting on one task of the
+    // shared pool, so all imports together never hold more than this many of its
+    // workers and queue slots. The default leaves logins half the pool's workers
+    // (with a single worker, imports use it but only ever one queue slot).
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor importHashingExecutor(
+            @Value("${user.import.hashing-threads:0}") int threads,
+            ThreadPoolExecutor passwordHashingExecutor) {
+        int poolSize = threads > 0 ? threads : Math.max(1, passwordHashingExecutor.getMaximumPoolSize() / 2);
+        return new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("import-hash-"));
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Value("${password.algorithm:bcrypt}") String algorithm,
+            @Value("${password.bcrypt.strength:12}") int strength,
+            @Value("${password.bcrypt.calibrate:false}") boolean calibrate,
+            @Value("${password.bcrypt.target-millis:250}") long targetMillis,
+            @Value("${password.bcrypt.min-strength:10}") int minStrength,
+            @Value("${password.bcrypt.max-strength:14}") int maxStrength,
+            ThreadPoolExecutor passwordHashingExecutor,
+            MeterRegistry meterRegistry) {
+        // The cost is never taken from the calibration: upgradeEncoding only ever
+        // raises it, so instances that disagree would rehash users to the highest
+        // cost any of them picked and the others would verify above their budget
+        if (calibrate) {
+            BCryptCostCalibrator.calibrate(Duration.ofMillis(targetMillis), minStrength, maxStrength, strength);
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(strength));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password.algorithm: " + algorithm);
+        }
+
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt;
+        // they still match and are reported as needing an upgrade.
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        return new BoundedPasswordEncoder(delegating, passwordHashingExecutor, meterRegistry);
     }
 }
@@ -0,0 +1,107 @@
+package com.soufyan.userservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the
+ * primary. Must sit behind a {@code LazyConnectionDataSourceProxy}, so the
+ * connection is only chosen once the transaction has been marked read-only.
+ * <p>
+ * A user who committed a write reads from the primary for a short window
+ * afterwards, so they never miss their own change because of replication lag.
+ * Writes made without an authenticated user (registration, login) are recorded
+ * through {@link #rememberWriter(long)} once the user is known, and
+ * {@link #onPrimary} pins reads explicitly until then.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final Cache<Long, Boolean> recentWriters;
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWritesWindow,
+                                    MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        this.primaryReads = Counter.builder("datasource.routing.reads").tag("target", "primary").register(meterRegistry);
+        this.replicaReads = Counter.builder("datasource.routing.reads").tag("target", "replica").register(meterRegistry);
+    }
+
+    /**
+     * Runs the work with read-only transactions on the primary, for reads that
+     * must see a write the caller cannot be identified with.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Runs on every checkout: settle what can be settled without the security context first
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Long userId = SecurityUtils.getCurrentUserId();
+            if (userId != null) {
+                rememberWriter(userId);
+            }
+            return Target.PRIMARY;
+        }
+        if (Boolean.TRUE.equals(PRIMARY_ONLY.get())) {
+            primaryReads.increment();
+            return Target.PRIMARY;
+        }
+        Long userId = SecurityUtils.getCurrentUserId();
+        if (userId != null && recentWriters.getIfPresent(userId) != null) {
+            primaryReads.increment();
+            return Target.PRIMARY;
+        }
+        replicaReads.increment();
+        return Target.REPLICA;
+    }
+
+    /**
+     * Sends the user's reads to the primary for the read-your-writes window,
+     * starting when the current transaction commits, or now when there is none.
+     * For writes the security context cannot attribute to the user, such as
+     * their registration or a login that follows it.
+     */
+    public void rememberWriter(long userId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            recentWriters.put(userId, Boolean.TRUE);
+            return;
+        }
+        // The window starts at commit, when the change begins to replicate
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+}
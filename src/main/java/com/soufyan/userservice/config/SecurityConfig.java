@@ -18,8 +18,13 @@ public class SecurityConfig extends BaseSecurityConfig {
     @Override
     protected void configureAuthorization(
             AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry auth) {
-        auth.requestMatchers("/auth/login", "/auth/register", "/api/auth/login", "/api/auth/register").permitAll()
-        .requestMatchers("/actuator/**").permitAll()
+        auth.requestMatchers("/auth/login", "/auth/register", "/auth/refresh",
+                "/api/auth/login", "/api/auth/register", "/api/auth/refresh").permitAll()
+        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+        .requestMatchers("/.well-known/jwks.json").permitAll()
+        // Metrics expose internals (pool sizes, per-endpoint latencies, cache sizes)
+        .requestMatchers("/actuator/**").hasRole("ADMIN")
+        .requestMatchers("/user/export", "/user/import").hasRole("ADMIN")
 
             .anyRequest().authenticated();
     }
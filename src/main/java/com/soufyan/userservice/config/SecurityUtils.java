@@ -12,7 +12,8 @@ public class SecurityUtils {
 
     public static Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication != null ? (Long) authentication.getDetails() : null;
+        // Only tokens set by JwtAuthFilter carry the id; anonymous ones hold request details
+        return authentication != null && authentication.getDetails() instanceof Long userId ? userId : null;
     }
 
     public static boolean hasRole(String role) {
@@ -4,19 +4,27 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.soufyan.userservice.dto.LoginResponseDto;
 import com.soufyan.userservice.dto.LoginUserDto;
+import com.soufyan.userservice.dto.RefreshTokenDto;
 import com.soufyan.userservice.dto.RegisterUserDto;
 import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.exception.UnauthorizedException;
 import com.soufyan.userservice.mapper.UserMapper;
 import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.service.LoginAttemptThrottle;
+import com.soufyan.userservice.service.RefreshTokenService;
+import com.soufyan.userservice.service.TokenRevocationService;
 import com.soufyan.userservice.service.UserService;
 import com.soufyan.userservice.config.JwtUtil;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 @RestController
@@ -24,20 +32,59 @@ import org.springframework.web.bind.annotation.RequestMapping;
 public class AuthenticationController {
     private  final UserService userService;
     private  final JwtUtil jwtUtil;
+    private  final LoginAttemptThrottle loginAttemptThrottle;
+    private  final RefreshTokenService refreshTokenService;
+    private  final TokenRevocationService tokenRevocationService;
     @Value("${jwt.expiration}")
     private long expiration;
 
-    public AuthenticationController(UserService userService, JwtUtil jwtUtil) {
+    public AuthenticationController(UserService userService, JwtUtil jwtUtil, LoginAttemptThrottle loginAttemptThrottle,
+                                    RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.loginAttemptThrottle = loginAttemptThrottle;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
 
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponseDto> login(@Valid @RequestBody LoginUserDto loginDto){
-        User user = userService.authenticateUser(loginDto);
+    public ResponseEntity<LoginResponseDto> login(@Valid @RequestBody LoginUserDto loginDto, HttpServletRequest request){
+        // Behind the ingress this is the forwarded client address (server.tomcat.remoteip)
+        String clientIp = request.getRemoteAddr();
+        // Throttled attempts never reach the database or BCrypt
+        loginAttemptThrottle.checkAllowed(loginDto.getEmail(), clientIp);
+        User user;
+        try {
+            user = userService.authenticateUser(loginDto);
+        } catch (UnauthorizedException e) {
+            loginAttemptThrottle.recordFailure(loginDto.getEmail(), clientIp);
+            throw e;
+        }
+        loginAttemptThrottle.recordSuccess(loginDto.getEmail());
         String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().toString());
-        return ResponseEntity.ok(new LoginResponseDto(token,expiration));
+        return ResponseEntity.ok(new LoginResponseDto(token, expiration, refreshTokenService.issue(user)));
+    }
+
+    // Renews the access token without the password check, so no BCrypt and no user lookup by email
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponseDto> refresh(@Valid @RequestBody RefreshTokenDto refreshDto){
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshDto.getRefreshToken());
+        User user = rotation.user();
+        String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().toString());
+        return ResponseEntity.ok(new LoginResponseDto(token, expiration, rotation.refreshToken()));
+    }
+
+    // Revokes the access token of the request and, when given, the refresh token's family
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @RequestBody(required = false) RefreshTokenDto refreshDto){
+        // The filter already accepted this Bearer token
+        tokenRevocationService.revoke(jwtUtil.parseClaims(authorization.substring(7)));
+        if (refreshDto != null && refreshDto.getRefreshToken() != null) {
+            refreshTokenService.revoke(refreshDto.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/register")
@@ -0,0 +1,35 @@
+package com.soufyan.userservice.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.soufyan.userservice.config.JwtKeys;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes the token verification keys so other services can check tokens
+ * without calling back. A new key must be published for at least the max-age
+ * before tokens are signed with it.
+ */
+@RestController
+public class JwksController {
+
+    private final Map<String, Object> jwks;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeys jwtKeys, @Value("${jwt.keys.jwks-max-age:5m}") Duration maxAge) {
+        // Keys only change on restart, so the set is built once
+        this.jwks = jwtKeys.jwks();
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok().cacheControl(cacheControl).body(jwks);
+    }
+}
@@ -4,59 +4,228 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.soufyan.userservice.dto.CursorPageDto;
 import com.soufyan.userservice.dto.DeleteUserDto;
+import com.soufyan.userservice.dto.ImportResultDto;
+import com.soufyan.userservice.dto.PageDto;
+import com.soufyan.userservice.dto.PatchUserDto;
+import com.soufyan.userservice.dto.RegisterUserDto;
 import com.soufyan.userservice.dto.UpdateUserDto;
 import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.dto.UserSearchCriteria;
+import com.soufyan.userservice.dto.UserVersionDto;
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.exception.ValidationException;
+import com.soufyan.userservice.mapper.CursorCodec;
+import com.soufyan.userservice.mapper.UserETags;
 import com.soufyan.userservice.mapper.UserMapper;
 import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.service.UserImportService;
 import com.soufyan.userservice.service.UserService;
 import com.soufyan.userservice.config.JwtUtil;
 import com.soufyan.userservice.config.SecurityUtils;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Size;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 @RequestMapping("/user")
 @Validated
 public class UserController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+    // Clients may keep responses but must revalidate them with the ETag; the
+    // security default (no-store) would leave them nothing to revalidate
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    // A stable order, so the version-only query sees the same rows as the full one
+    private static final Sort BY_ID = Sort.by("id");
+
     @Autowired
     UserService userService;
 
     @Autowired 
     JwtUtil jwtUtil;
 
+    @Autowired
+    UserImportService userImportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     @PutMapping("/update")
-    public ResponseEntity<User> update(@Valid @RequestBody UpdateUserDto updateDto){
+    public ResponseEntity<User> update(@Valid @RequestBody UpdateUserDto updateDto,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         long userId = SecurityUtils.getCurrentUserId();
-        User updatedUser = userService.updateUser(userId, updateDto);
-        return ResponseEntity.ok(updatedUser);
+        User updatedUser = userService.updateUser(userId, updateDto, UserETags.expectedVersion(ifMatch, userId));
+        return ResponseEntity.ok().eTag(UserETags.of(userId, updatedUser.getVersion())).body(updatedUser);
+    }
+
+    // Only the fields present in the body change
+    @PatchMapping("/")
+    public ResponseEntity<UserDto> patch(@Valid @RequestBody PatchUserDto patchDto,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        long userId = SecurityUtils.getCurrentUserId();
+        User patchedUser = userService.patchUser(userId, patchDto, UserETags.expectedVersion(ifMatch, userId));
+        return ResponseEntity.ok().eTag(UserETags.of(userId, patchedUser.getVersion())).body(UserMapper.toDto(patchedUser));
     }
 
     @GetMapping("/")
-    public ResponseEntity<UserDto> get(){
+    public ResponseEntity<UserDto> get(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
         long userId = SecurityUtils.getCurrentUserId();
-        User user = userService.loadUserById(userId);
-        return ResponseEntity.ok(UserMapper.toDto(user));
+        if (ifNoneMatch != null) {
+            String etag = UserETags.of(userId, userService.getUserVersion(userId));
+            if (UserETags.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+        }
+        UserDto user = userService.loadUserById(userId);
+        return ResponseEntity.ok().eTag(UserETags.of(userId, user.getVersion())).cacheControl(REVALIDATE).body(user);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Page<UserDto>> getAllUsers(
+    public ResponseEntity<PageDto<UserDto>> getAllUsers(
             @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Pageable pageable = PageRequest.of(page, size, BY_ID);
+        if (ifNoneMatch != null) {
+            Page<UserVersionDto> versions = userService.getAllUserVersions(pageable);
+            String etag = UserETags.ofPage(versions.getTotalElements(), versions.getContent());
+            if (UserETags.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+        }
+        Page<UserDto> users = userService.getAllUsers(pageable);
+        String etag = UserETags.ofPage(users.getTotalElements(), UserETags.versionsOf(users.getContent()));
+        PageDto<UserDto> body = new PageDto<>(users.getContent(), users.getNumber(), users.getSize(),
+                users.getTotalElements(), users.getTotalPages());
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+
+    // Keyset mode, selected by the presence of ?cursor (empty for the first page)
+    @GetMapping(value = "/all", params = "cursor")
+    public ResponseEntity<CursorPageDto<UserDto>> getAllUsersAfter(
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        long afterId = CursorCodec.decodeId(cursor);
+        if (ifNoneMatch != null) {
+            String etag = UserETags.ofPage(0, userService.getUserVersionsAfter(afterId, size + 1));
+            if (UserETags.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+        }
+        // One extra row tells whether another page exists
+        List<UserDto> users = userService.getUsersAfter(afterId, size + 1);
+        boolean hasNext = users.size() > size;
+        List<UserDto> content = hasNext ? users.subList(0, size) : users;
+        String nextCursor = hasNext ? CursorCodec.encodeId(content.get(content.size() - 1).getId()) : null;
+        return ResponseEntity.ok()
+                .eTag(UserETags.ofPage(0, UserETags.versionsOf(users)))
+                .cacheControl(REVALIDATE)
+                .body(new CursorPageDto<>(content, content.size(), nextCursor));
+    }
+
+    // Filtered listing, keyset-paginated like ?cursor= above. name is a last name
+    // prefix; sort is id or name, and the cursor only continues the same sort.
+    // Filtered searches default to, and only allow, name order.
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageDto<UserDto>> search(
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) @Size(min = 1, max = 100) String name,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "") String cursor,
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<UserDto> users = userService.getAllUsers(pageable).map(UserMapper::toDto);
-        return ResponseEntity.ok(users);
+        if (sort == null) {
+            sort = country != null || city != null || role != null || name != null ? "name" : "id";
+        }
+        boolean sortByName = switch (sort) {
+            case "id" -> false;
+            case "name" -> true;
+            default -> throw new ValidationException("sort must be id or name");
+        };
+        CursorCodec.NameKey after = sortByName ? CursorCodec.decodeName(cursor) : null;
+        long afterId = sortByName ? (after == null ? 0L : after.getId()) : CursorCodec.decodeId(cursor);
+        UserSearchCriteria criteria = new UserSearchCriteria(country, city, role, name, sortByName,
+                after == null ? null : after.getLastName(), afterId);
+
+        // One extra row tells whether another page exists
+        List<UserDto> users = userService.searchUsers(criteria, size + 1);
+        boolean hasNext = users.size() > size;
+        List<UserDto> content = hasNext ? users.subList(0, size) : users;
+        String nextCursor = null;
+        if (hasNext) {
+            UserDto last = content.get(content.size() - 1);
+            nextCursor = sortByName ? CursorCodec.encodeName(last.getLastName(), last.getId()) : CursorCodec.encodeId(last.getId());
+        }
+        return ResponseEntity.ok(new CursorPageDto<>(content, content.size(), nextCursor));
+    }
+
+    // Admin only (see SecurityConfig). Writes one JSON object per line as rows
+    // arrive from the database cursor, so memory use does not depend on row count.
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        ObjectWriter userDtoWriter = objectMapper.writerFor(UserDto.class);
+        OutputStream out = response.getOutputStream();
+        userService.exportUsers(dto -> {
+            try {
+                out.write(userDtoWriter.writeValueAsBytes(dto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
+    // Admin only (see SecurityConfig). The body is read row by row, never buffered whole.
+    @PostMapping(value = "/import", consumes = {NDJSON, CSV})
+    public ResponseEntity<ImportResultDto> importUsers(HttpServletRequest request) throws IOException {
+        ObjectReader reader = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? new CsvMapper().readerFor(RegisterUserDto.class).with(CsvSchema.emptySchema().withHeader())
+                : objectMapper.readerFor(RegisterUserDto.class);
+        try (MappingIterator<RegisterUserDto> rows = reader.readValues(request.getInputStream())) {
+            return ResponseEntity.ok(userImportService.importUsers(rows));
+        }
     }
 
     @DeleteMapping("/delete")
@@ -65,5 +234,9 @@ public class UserController {
         userService.deleteUser(userId,deleteDto);
         return ResponseEntity.ok("User deleted");
     }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
     
 }
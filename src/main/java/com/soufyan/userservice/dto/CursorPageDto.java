@@ -0,0 +1,15 @@
+package com.soufyan.userservice.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> content;
+    private int size;
+    // Opaque, null on the last page
+    private String nextCursor;
+}
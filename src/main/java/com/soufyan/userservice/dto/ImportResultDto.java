@@ -0,0 +1,17 @@
+package com.soufyan.userservice.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ImportResultDto {
+    private long imported;
+    private long failed;
+    // Failed rows that were valid but found no password hashing capacity; send them again
+    private long retryable;
+    // Capped at user.import.max-reported-errors, failed is always exact
+    private List<ImportRowErrorDto> errors;
+}
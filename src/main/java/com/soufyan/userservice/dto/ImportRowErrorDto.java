@@ -0,0 +1,13 @@
+package com.soufyan.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ImportRowErrorDto {
+    // 1-based, not counting a CSV header line
+    private long row;
+    private String email;
+    private String message;
+}
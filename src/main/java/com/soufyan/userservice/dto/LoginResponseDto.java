@@ -10,5 +10,5 @@ import lombok.Setter;
 public class LoginResponseDto {
     private String token;
     private long expiresIn;
-    
+    private String refreshToken;
 }
@@ -0,0 +1,20 @@
+package com.soufyan.userservice.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Offset page as sent to clients: the content plus the four numbers needed to
+ * page through it, instead of Spring Data's Pageable and Sort structures.
+ */
+@Getter
+@AllArgsConstructor
+public class PageDto<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
@@ -0,0 +1,42 @@
+package com.soufyan.userservice.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Partial profile update: fields left out (null) keep their current value,
+ * fields that are sent must not be blank.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatchUserDto {
+    private static final String NOT_BLANK = ".*\\S.*";
+
+    @Pattern(regexp = NOT_BLANK, message = "First name must not be blank")
+    private String firstName;
+
+    @Pattern(regexp = NOT_BLANK, message = "Last name must not be blank")
+    private String lastName;
+
+    @Pattern(regexp = NOT_BLANK, message = "Email must not be blank")
+    @Email(message = "Email must be valid")
+    private String email;
+
+    @Pattern(regexp = NOT_BLANK, message = "Phone must not be blank")
+    private String phone;
+
+    @Pattern(regexp = NOT_BLANK, message = "Country must not be blank")
+    private String country;
+
+    @Pattern(regexp = NOT_BLANK, message = "City must not be blank")
+    private String city;
+
+    @Pattern(regexp = NOT_BLANK, message = "Street must not be blank")
+    private String street;
+}
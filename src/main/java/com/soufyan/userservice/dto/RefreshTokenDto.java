@@ -0,0 +1,16 @@
+package com.soufyan.userservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenDto {
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
@@ -4,7 +4,6 @@ import com.soufyan.userservice.enums.Role;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -42,6 +41,6 @@ public class RegisterUserDto {
     @NotBlank(message = "Street is required")
     private String street;
     
-    @NotNull(message = "Role is required")
+    // Only the admin import honours it; self-registration always creates a USER
     private Role role;
 }
\ No newline at end of file
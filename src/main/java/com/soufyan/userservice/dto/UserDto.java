@@ -1,5 +1,6 @@
 package com.soufyan.userservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.soufyan.userservice.enums.Role;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,5 +21,8 @@ public class UserDto {
     private String city;
     private String street;
     private Role role;
+    // Sent as the ETag header, not in the body
+    @JsonIgnore
+    private long version;
     // Note: No password field for security
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.soufyan.userservice.dto;
+
+import com.soufyan.userservice.enums.Role;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Filters and keyset position of a user search. Null filters are not applied.
+ */
+@Getter
+@AllArgsConstructor
+public class UserSearchCriteria {
+    private String country;
+    // Only together with country: city names repeat across countries
+    private String city;
+    private Role role;
+    // Prefix of the last name, matched case-sensitively
+    private String namePrefix;
+    // Ordered by (lastName, id) instead of id; required as soon as a filter is set
+    private boolean sortByName;
+    // Last row of the previous page; afterLastName is only used when sorting by name
+    private String afterLastName;
+    private long afterId;
+
+    public boolean hasFilters() {
+        return country != null || city != null || role != null || namePrefix != null;
+    }
+}
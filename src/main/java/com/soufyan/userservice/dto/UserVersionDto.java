@@ -0,0 +1,11 @@
+package com.soufyan.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserVersionDto {
+    private long id;
+    private long version;
+}
@@ -0,0 +1,72 @@
+package com.soufyan.userservice.mapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.soufyan.userservice.exception.ValidationException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Encodes keyset positions as opaque URL-safe cursors so clients cannot
+ * depend on what is inside them.
+ */
+public class CursorCodec {
+
+    private static final String ID_PREFIX = "id:";
+    private static final String NAME_PREFIX = "name:";
+
+    // Position in a (lastName, id) ordering
+    @Getter
+    @AllArgsConstructor
+    public static class NameKey {
+        private String lastName;
+        private long id;
+    }
+
+    public static String encodeId(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((ID_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // An empty cursor means "start from the beginning"
+    public static long decodeId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(ID_PREFIX)) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return Long.parseLong(decoded.substring(ID_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    public static String encodeName(String lastName, long lastId) {
+        // The id goes first: it never contains the separator, the name may
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((NAME_PREFIX + lastId + ":" + lastName).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Null for an empty cursor, meaning "start from the beginning"
+    public static NameKey decodeName(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':', NAME_PREFIX.length());
+            if (!decoded.startsWith(NAME_PREFIX) || separator < 0) {
+                throw new ValidationException("Invalid cursor");
+            }
+            long id = Long.parseLong(decoded.substring(NAME_PREFIX.length(), separator));
+            return new NameKey(decoded.substring(separator + 1), id);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
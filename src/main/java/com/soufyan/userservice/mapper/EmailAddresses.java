@@ -0,0 +1,16 @@
+package com.soufyan.userservice.mapper;
+
+import java.util.Locale;
+
+/**
+ * The single definition of an email's canonical form. Emails are stored in this
+ * form and every lookup canonicalizes its argument first, so a plain equality
+ * match on the indexed column is case-insensitive.
+ */
+public class EmailAddresses {
+
+    // Locale.ROOT so the result does not depend on the server locale (e.g. Turkish dotless i)
+    public static String canonicalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,89 @@
+package com.soufyan.userservice.mapper;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.dto.UserVersionDto;
+import com.soufyan.userservice.exception.PreconditionFailedException;
+
+/**
+ * ETags for user representations, computed from ids and entity versions only,
+ * so a conditional request can be answered without loading the rows.
+ */
+public class UserETags {
+
+    public static String of(long userId, long version) {
+        return "\"" + userId + "." + version + "\"";
+    }
+
+    /**
+     * Weak, because the same page may go out gzipped or not (and Tomcat does not
+     * compress responses carrying a strong ETag).
+     *
+     * @param extra what else the body depends on besides the rows: the total for
+     *              offset pages. Cursor pages pass 0 and include their look-ahead row.
+     */
+    public static String ofPage(long extra, List<UserVersionDto> rows) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * (1 + 2 * rows.size()));
+        buffer.putLong(extra);
+        for (UserVersionDto row : rows) {
+            buffer.putLong(row.getId()).putLong(row.getVersion());
+        }
+        byte[] hash = sha256().digest(buffer.array());
+        return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+    }
+
+    // If-None-Match uses the weak comparison, so W/ prefixes are ignored
+    public static boolean matches(String ifNoneMatch, String etag) {
+        String opaque = withoutWeakPrefix(etag);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || withoutWeakPrefix(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    public static List<UserVersionDto> versionsOf(List<UserDto> users) {
+        return users.stream().map(user -> new UserVersionDto(user.getId(), user.getVersion())).toList();
+    }
+
+    /**
+     * The version an If-Match header requires the user to be at, or null when
+     * any version will do (no header, or {@code *}). A tag that cannot belong to
+     * this user can never match.
+     */
+    public static Long expectedVersion(String ifMatch, long userId) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        String prefix = "\"" + userId + ".";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // falls through to the failed precondition
+            }
+        }
+        throw new PreconditionFailedException("User has been modified");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.soufyan.userservice.mapper;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.soufyan.userservice.dto.LoginResponseDto;
+import com.soufyan.userservice.dto.PageDto;
+import com.soufyan.userservice.dto.UserDto;
+
+/**
+ * Hand-written serializers for the bodies written most often: listings and
+ * logins. They write the same JSON as Jackson's bean serializers would, without
+ * going through reflective property accessors. Spring Boot registers the module
+ * with the application's ObjectMapper.
+ */
+@Component
+public class UserJsonModule extends SimpleModule {
+
+    public UserJsonModule() {
+        super("UserJsonModule");
+        addSerializer(UserDto.class, new UserDtoSerializer());
+        addSerializer(LoginResponseDto.class, new LoginResponseSerializer());
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Class<PageDto<?>> pageType = (Class) PageDto.class;
+        addSerializer(pageType, new PageSerializer());
+    }
+
+    // Field order follows UserDto; version goes out as the ETag header instead
+    static class UserDtoSerializer extends StdSerializer<UserDto> {
+        UserDtoSerializer() {
+            super(UserDto.class);
+        }
+
+        @Override
+        public void serialize(UserDto user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            if (user.getId() == null) {
+                gen.writeNullField("id");
+            } else {
+                gen.writeNumberField("id", user.getId());
+            }
+            gen.writeStringField("firstName", user.getFirstName());
+            gen.writeStringField("lastName", user.getLastName());
+            gen.writeStringField("email", user.getEmail());
+            gen.writeStringField("phone", user.getPhone());
+            gen.writeStringField("country", user.getCountry());
+            gen.writeStringField("city", user.getCity());
+            gen.writeStringField("street", user.getStreet());
+            gen.writeStringField("role", user.getRole() == null ? null : user.getRole().name());
+            gen.writeEndObject();
+        }
+    }
+
+    static class LoginResponseSerializer extends StdSerializer<LoginResponseDto> {
+        LoginResponseSerializer() {
+            super(LoginResponseDto.class);
+        }
+
+        @Override
+        public void serialize(LoginResponseDto login, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("token", login.getToken());
+            gen.writeNumberField("expiresIn", login.getExpiresIn());
+            gen.writeStringField("refreshToken", login.getRefreshToken());
+            gen.writeEndObject();
+        }
+    }
+
+    static class PageSerializer extends StdSerializer<PageDto<?>> {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PageSerializer() {
+            super((Class) PageDto.class);
+        }
+
+        @Override
+        public void serialize(PageDto<?> page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            // Elements go through the serializer registered for their type
+            provider.defaultSerializeField("content", page.getContent(), gen);
+            gen.writeNumberField("page", page.getPage());
+            gen.writeNumberField("size", page.getSize());
+            gen.writeNumberField("totalElements", page.getTotalElements());
+            gen.writeNumberField("totalPages", page.getTotalPages());
+            gen.writeEndObject();
+        }
+    }
+}
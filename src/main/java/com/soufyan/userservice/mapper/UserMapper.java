@@ -1,38 +1,73 @@
 package com.soufyan.userservice.mapper;
 
+import java.util.function.Consumer;
+
 import org.springframework.stereotype.Component;
 
+import com.soufyan.userservice.dto.PatchUserDto;
 import com.soufyan.userservice.dto.RegisterUserDto;
 import com.soufyan.userservice.dto.UpdateUserDto;
 import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.enums.Role;
 import com.soufyan.userservice.model.User;
 
 @Component
 public class UserMapper {
     
     public static void updateUserFromDto(UpdateUserDto dto, User user) {
-        if (dto.getFirstName() != null) user.setFirstName(dto.getFirstName());
-        if (dto.getLastName() != null) user.setLastName(dto.getLastName());
-        if (dto.getEmail() != null) user.setEmail(dto.getEmail());
-        if (dto.getPhone() != null) user.setPhone(dto.getPhone());
-        if (dto.getCountry() != null) user.setCountry(dto.getCountry());
-        if (dto.getCity() != null) user.setCity(dto.getCity());
-        if (dto.getStreet() != null) user.setStreet(dto.getStreet());
+        applyPatch(toPatch(dto), user);
+    }
+
+    // A full update is a patch that happens to set every field
+    public static PatchUserDto toPatch(UpdateUserDto dto) {
+        return new PatchUserDto(dto.getFirstName(), dto.getLastName(), dto.getEmail(), dto.getPhone(),
+                dto.getCountry(), dto.getCity(), dto.getStreet());
+    }
+
+    /**
+     * Copies the fields the patch sets onto the user, skipping values that are
+     * already current.
+     *
+     * @return whether any field changed
+     */
+    public static boolean applyPatch(PatchUserDto patch, User user) {
+        boolean changed = set(patch.getFirstName(), user.getFirstName(), user::setFirstName);
+        changed |= set(patch.getLastName(), user.getLastName(), user::setLastName);
+        changed |= set(EmailAddresses.canonicalize(patch.getEmail()), user.getEmail(), user::setEmail);
+        changed |= set(patch.getPhone(), user.getPhone(), user::setPhone);
+        changed |= set(patch.getCountry(), user.getCountry(), user::setCountry);
+        changed |= set(patch.getCity(), user.getCity(), user::setCity);
+        changed |= set(patch.getStreet(), user.getStreet(), user::setStreet);
+        return changed;
+    }
+
+    private static boolean set(String value, String current, Consumer<String> setter) {
+        if (value == null || value.equals(current)) {
+            return false;
+        }
+        setter.accept(value);
+        return true;
     }
 
     public static User registerDtoToEntity(RegisterUserDto dto) {
         User user = new User();
         user.setFirstName(dto.getFirstName());
         user.setLastName(dto.getLastName());
-        user.setEmail(dto.getEmail());
+        user.setEmail(EmailAddresses.canonicalize(dto.getEmail()));
         user.setPhone(dto.getPhone());
         user.setCountry(dto.getCountry());
         user.setCity(dto.getCity());
         user.setStreet(dto.getStreet());
-        user.setRole(dto.getRole());
+        user.setRole(dto.getRole() != null ? dto.getRole() : Role.USER);
         return user;
     }
 
+    // Detached copy with every column, for holders that must not share the instance
+    public static User copy(User user) {
+        return new User(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(), user.getPhone(),
+                user.getPassword(), user.getCountry(), user.getCity(), user.getStreet(), user.getRole(), user.getVersion());
+    }
+
     public static UserDto toDto(User user) {
         UserDto dto = new UserDto();
         dto.setId(user.getId());
@@ -44,6 +79,7 @@ public class UserMapper {
         dto.setCity(user.getCity());
         dto.setStreet(user.getStreet());
         dto.setRole(user.getRole());
+        dto.setVersion(user.getVersion());
         return dto;
     }
 }
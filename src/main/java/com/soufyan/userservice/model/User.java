@@ -7,6 +7,9 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import com.soufyan.userservice.enums.Role;
 
 import jakarta.persistence.Column;
@@ -16,14 +19,30 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+// Updates set only the changed columns instead of rewriting the whole row
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+// Search access paths (see UserRepositoryCustom#search), one per filter
+// combination, each its equality columns followed by the (last_name, id) name
+// order: country, city and role in that order, or none. Filtered searches are always name ordered; unfiltered id-ordered
+// pages walk the primary key. On PostgreSQL last_name is collated "C" so a name
+// prefix can seek these indexes (db/postgresql/user-search-indexes.sql).
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_country_city_role_last_name", columnList = "country, city, role, last_name, id"),
+        @Index(name = "idx_users_country_city_last_name", columnList = "country, city, last_name, id"),
+        @Index(name = "idx_users_country_role_last_name", columnList = "country, role, last_name, id"),
+        @Index(name = "idx_users_country_last_name", columnList = "country, last_name, id"),
+        @Index(name = "idx_users_last_name", columnList = "last_name, id"),
+        @Index(name = "idx_users_role_last_name", columnList = "role, last_name, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -51,6 +70,12 @@ public class User  implements UserDetails {
     @Column (nullable = false)
     @Enumerated(EnumType.STRING)
     private Role role;  
+    // Incremented on every update; the users' ETags are derived from it.
+    // The default covers rows inserted outside Hibernate (bulk import).
+    @Version
+    @ColumnDefault("0")
+    @Column (nullable = false)
+    private long version;
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(this.role.name()));
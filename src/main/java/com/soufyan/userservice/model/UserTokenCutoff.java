@@ -0,0 +1,33 @@
+package com.soufyan.userservice.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Revokes every access token of a user issued up to {@code revokedBefore}. No
+ * foreign key: the row must outlive a deleted user until their tokens expire.
+ */
+@Entity
+@Table(name = "user_token_cutoffs", indexes = @Index(name = "idx_user_token_cutoffs_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTokenCutoff {
+    @Id
+    @Column(name = "user_id")
+    private long userId;
+    @Column(name = "revoked_before", nullable = false)
+    private Instant revokedBefore;
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
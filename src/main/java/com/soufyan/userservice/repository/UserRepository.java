@@ -1,15 +1,62 @@
 package com.soufyan.userservice.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.dto.UserVersionDto;
 import com.soufyan.userservice.model.*;
 
 @Repository
-public interface UserRepository extends CrudRepository<User,Long>, PagingAndSortingRepository<User,Long> {
+public interface UserRepository extends CrudRepository<User,Long>, PagingAndSortingRepository<User,Long>, UserRepositoryCustom {
+
+    // Read-only views select just the exposed columns into UserDto: no password
+    // hash is read and nothing enters the persistence context
+    String SELECT_USER_DTO = "select new com.soufyan.userservice.dto.UserDto("
+            + "u.id, u.firstName, u.lastName, u.email, u.phone, u.country, u.city, u.street, u.role, u.version) "
+            + "from User u";
+
+    // Just enough to compute ETags, for conditional requests that end in a 304
+    String SELECT_USER_VERSION = "select new com.soufyan.userservice.dto.UserVersionDto(u.id, u.version) from User u";
+
     Optional<User> findByEmail(String email);
     Page<User> findAll(Pageable pageable);
+
+    @Query(SELECT_USER_DTO + " where u.id = :id")
+    Optional<UserDto> findDtoById(long id);
+
+    @Query(value = SELECT_USER_DTO, countQuery = "select count(u) from User u")
+    Page<UserDto> findAllDto(Pageable pageable);
+
+    // Keyset seek on the primary key: no OFFSET scan and no count query
+    @Query(SELECT_USER_DTO + " where u.id > :id order by u.id")
+    List<UserDto> findDtoByIdGreaterThan(long id, Limit limit);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(long id);
+
+    @Query(value = SELECT_USER_VERSION, countQuery = "select count(u) from User u")
+    Page<UserVersionDto> findAllVersions(Pageable pageable);
+
+    @Query(SELECT_USER_VERSION + " where u.id > :id order by u.id")
+    List<UserVersionDto> findVersionsByIdGreaterThan(long id, Limit limit);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    // Only replaces the hash if nobody changed it since it was read
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePasswordIfUnchanged(long id, String oldPassword, String newPassword);
 }
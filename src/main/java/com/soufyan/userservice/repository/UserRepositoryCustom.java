@@ -0,0 +1,43 @@
+package com.soufyan.userservice.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.dto.UserSearchCriteria;
+import com.soufyan.userservice.model.User;
+
+public interface UserRepositoryCustom {
+    /**
+     * Streams every user as a DTO through a forward-only cursor. Must be consumed
+     * inside a transaction and closed afterwards.
+     */
+    Stream<UserDto> streamAllAsDto(int fetchSize);
+
+    /**
+     * Streams the email of every user, with the same cursor rules as
+     * {@link #streamAllAsDto(int)}.
+     */
+    Stream<String> streamAllEmails(int fetchSize);
+
+    /**
+     * Inserts the users as a single JDBC batch in one transaction, bypassing the
+     * persistence context. Ids are generated by the database and not read back.
+     */
+    void insertAll(List<User> users);
+
+    /**
+     * Writes pending changes now, so constraint violations surface at the call
+     * instead of at commit.
+     */
+    void flush();
+
+    /**
+     * Returns up to {@code limit} users matching the criteria, after its keyset
+     * position. Every combination of country, city and role has an index on
+     * users that both seeks to it and returns it in name order, so a rare role
+     * in a large country reads no more rows than the page; filtered searches
+     * must sort by name.
+     */
+    List<UserDto> search(UserSearchCriteria criteria, int limit);
+}
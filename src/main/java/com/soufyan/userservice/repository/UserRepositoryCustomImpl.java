@@ -0,0 +1,127 @@
+package com.soufyan.userservice.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.dto.UserSearchCriteria;
+import com.soufyan.userservice.model.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "insert into users (first_name, last_name, email, phone, password, country, city, street, role) "
+                    + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Stream<UserDto> streamAllAsDto(int fetchSize) {
+        // Constructor projection: rows never become managed entities, so the
+        // persistence context does not grow with the number of rows
+        return entityManager.createQuery(UserRepository.SELECT_USER_DTO + " order by u.id", UserDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<String> streamAllEmails(int fetchSize) {
+        return entityManager.createQuery("select u.email from User u", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // Hibernate cannot batch inserts for IDENTITY ids because it reads each key
+    // back; plain JDBC can, since the keys are not needed here
+    @Override
+    @Transactional
+    public void insertAll(List<User> users) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, users, users.size(), (ps, user) -> {
+            ps.setString(1, user.getFirstName());
+            ps.setString(2, user.getLastName());
+            ps.setString(3, user.getEmail());
+            ps.setString(4, user.getPhone());
+            ps.setString(5, user.getPassword());
+            ps.setString(6, user.getCountry());
+            ps.setString(7, user.getCity());
+            ps.setString(8, user.getStreet());
+            ps.setString(9, user.getRole().name());
+        });
+    }
+
+    @Override
+    public void flush() {
+        entityManager.flush();
+    }
+
+    @Override
+    public List<UserDto> search(UserSearchCriteria criteria, int limit) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (criteria.getCountry() != null) {
+            predicates.add("u.country = :country");
+            parameters.put("country", criteria.getCountry());
+        }
+        if (criteria.getCity() != null) {
+            predicates.add("u.city = :city");
+            parameters.put("city", criteria.getCity());
+        }
+        if (criteria.getRole() != null) {
+            predicates.add("u.role = :role");
+            parameters.put("role", criteria.getRole());
+        }
+        if (criteria.getNamePrefix() != null) {
+            predicates.add("u.lastName like :namePrefix escape '\\'");
+            parameters.put("namePrefix", escapeLike(criteria.getNamePrefix()) + "%");
+        }
+        String orderBy;
+        if (criteria.isSortByName()) {
+            if (criteria.getAfterLastName() != null) {
+                // Row value comparison, so the seek is a single index range
+                predicates.add("(u.lastName, u.id) > (:afterLastName, :afterId)");
+                parameters.put("afterLastName", criteria.getAfterLastName());
+                parameters.put("afterId", criteria.getAfterId());
+            }
+            // Leads with the equality columns of the index the filters pick; they are
+            // constant in the result, so the order is unchanged but reads as the index's
+            orderBy = " order by " + (criteria.getCountry() != null ? "u.country, " : "")
+                    + (criteria.getCity() != null ? "u.city, " : "")
+                    + (criteria.getRole() != null ? "u.role, " : "") + "u.lastName, u.id";
+        } else {
+            predicates.add("u.id > :afterId");
+            parameters.put("afterId", criteria.getAfterId());
+            orderBy = " order by u.id";
+        }
+
+        String where = predicates.isEmpty() ? "" : " where " + String.join(" and ", predicates);
+        TypedQuery<UserDto> query = entityManager.createQuery(UserRepository.SELECT_USER_DTO + where + orderBy, UserDto.class)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,20 @@
+package com.soufyan.userservice.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.soufyan.userservice.model.UserTokenCutoff;
+
+public interface UserTokenCutoffRepository extends JpaRepository<UserTokenCutoff, Long> {
+
+    List<UserTokenCutoff> findByExpiresAtAfter(Instant now);
+
+    @Modifying
+    @Query("delete from UserTokenCutoff c where c.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,178 @@
+package com.soufyan.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.soufyan.userservice.mapper.EmailAddresses;
+import com.soufyan.userservice.repository.UserRepository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over the emails in the {@code users} table, used to skip the
+ * duplicate-email lookup for addresses that certainly do not exist yet. It may
+ * answer "maybe present" for a new email; the unique constraint on
+ * {@code email} remains the final guard.
+ * <p>
+ * Each instance builds its own filter at startup and then only sees the emails
+ * added through it. Emails are never removed: another instance may have added
+ * the email since, so clearing its bits could hide a live one. A deleted or
+ * changed email lingers as a false positive until the next restart. An email
+ * registered through another instance after the build can be reported as
+ * definitely new here; the insert then fails on the unique constraint and the
+ * caller reports the duplicate as usual.
+ */
+@Component
+public class EmailFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailFilter.class);
+
+    private final boolean enabled;
+    private final int bitCount;
+    private final int hashCount;
+    private final int fetchSize;
+    private final UserRepository userRepository;
+    private final Timer buildTimer;
+    private final Counter definitelyNew;
+    private final Counter maybePresent;
+    private final AtomicLong entries = new AtomicLong();
+
+    private final AtomicLongArray bits;
+    private volatile boolean ready;
+
+    public EmailFilter(@Value("${user.email-filter.enabled:true}") boolean enabled,
+                       @Value("${user.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                       @Value("${user.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                       @Value("${user.email-filter.fetch-size:1000}") int fetchSize,
+                       UserRepository userRepository,
+                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(optimalBits, 64), Integer.MAX_VALUE - 63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.fetchSize = fetchSize;
+        this.userRepository = userRepository;
+        this.bits = new AtomicLongArray((bitCount + 63) / 64);
+
+        this.buildTimer = Timer.builder("users.email.filter.build").register(meterRegistry);
+        this.definitelyNew = Counter.builder("users.email.filter.checks").tag("result", "definitely_new").register(meterRegistry);
+        this.maybePresent = Counter.builder("users.email.filter.checks").tag("result", "maybe_present").register(meterRegistry);
+        Gauge.builder("users.email.filter.false.positive.rate", this, EmailFilter::expectedFalsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.memory", this, filter -> filter.bits.length() * (double) Long.BYTES)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.entries", entries, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Loads every existing email once the application is up. Until it finishes
+     * every email is reported as possibly present, so callers fall back to the
+     * lookup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        if (!enabled || ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        // Registrations running meanwhile set bits in the same array, so none is
+        // lost; an email added twice only counts twice in the entries gauge
+        try (Stream<String> emails = userRepository.streamAllEmails(fetchSize)) {
+            emails.forEach(this::add);
+        }
+        long elapsed = System.nanoTime() - start;
+        buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        ready = true;
+        log.info("Email filter built with {} entries in {} ms", entries.get(), elapsed / 1_000_000);
+    }
+
+    /**
+     * Returns true only if no user has this email. False means the caller must
+     * check the database.
+     */
+    public boolean isDefinitelyNew(String email) {
+        if (!enabled || !ready) {
+            return false;
+        }
+        long hash = hash(email);
+        for (int i = 0; i < hashCount; i++) {
+            if (!isSet(bits, index(hash, i))) {
+                definitelyNew.increment();
+                return true;
+            }
+        }
+        maybePresent.increment();
+        return false;
+    }
+
+    /**
+     * Records the email. Call before the row is inserted so no concurrent check
+     * can see the new row as absent.
+     */
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+        long hash = hash(email);
+        for (int i = 0; i < hashCount; i++) {
+            set(bits, index(hash, i));
+        }
+        entries.incrementAndGet();
+    }
+
+    double expectedFalsePositiveRate() {
+        double fill = 1 - Math.exp(-hashCount * (double) Math.max(entries.get(), 0) / bitCount);
+        return Math.pow(fill, hashCount);
+    }
+
+    // Double hashing: the two halves of one 64-bit hash generate all k indexes
+    private int index(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + i * h2, bitCount);
+    }
+
+    // Hashes the canonical form, so rows stored before emails were canonicalized still match
+    private static long hash(String email) {
+        String canonical = EmailAddresses.canonicalize(email);
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < canonical.length(); i++) {
+            h ^= canonical.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // FNV-1a spreads poorly in the high bits; finish with the SplitMix64 mixer
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private static boolean isSet(AtomicLongArray bits, int index) {
+        return (bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    private static void set(AtomicLongArray bits, int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = bits.get(word);
+            if ((current & mask) != 0 || bits.compareAndSet(word, current, current | mask)) {
+                return;
+            }
+        }
+    }
+}
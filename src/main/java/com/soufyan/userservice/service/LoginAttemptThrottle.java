@@ -0,0 +1,122 @@
+package com.soufyan.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.soufyan.userservice.exception.TooManyLoginAttemptsException;
+import com.soufyan.userservice.mapper.EmailAddresses;
+
+import java.time.Duration;
+
+/**
+ * Tracks failed logins per email and per client IP and imposes an exponentially
+ * growing wait once a key has used up its free attempts. Counters live in
+ * bounded Caffeine caches and are forgotten after a quiet period, so memory
+ * stays bounded and updates only contend on the same key.
+ */
+@Component
+public class LoginAttemptThrottle {
+
+    private final boolean enabled;
+    private final int emailFreeAttempts;
+    private final int ipFreeAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Cache<String, Attempts> byEmail;
+    private final Cache<String, Attempts> byClientIp;
+    private final Counter rejectedByEmail;
+    private final Counter rejectedByClientIp;
+
+    public LoginAttemptThrottle(@Value("${login.throttle.enabled:true}") boolean enabled,
+                                @Value("${login.throttle.email-free-attempts:5}") int emailFreeAttempts,
+                                @Value("${login.throttle.ip-free-attempts:20}") int ipFreeAttempts,
+                                @Value("${login.throttle.base-delay:1s}") Duration baseDelay,
+                                @Value("${login.throttle.max-delay:15m}") Duration maxDelay,
+                                @Value("${login.throttle.forget-after:15m}") Duration forgetAfter,
+                                @Value("${login.throttle.maximum-size:100000}") long maximumSize,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.emailFreeAttempts = emailFreeAttempts;
+        this.ipFreeAttempts = ipFreeAttempts;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        // A key must stay remembered at least as long as its longest block
+        Duration expiry = forgetAfter.compareTo(maxDelay) > 0 ? forgetAfter : maxDelay;
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expiry)
+                .recordStats()
+                .build();
+        this.byClientIp = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expiry)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "login.attempts.email");
+        CaffeineCacheMetrics.monitor(meterRegistry, byClientIp, "login.attempts.ip");
+        this.rejectedByEmail = Counter.builder("login.throttle.rejected").tag("key", "email").register(meterRegistry);
+        this.rejectedByClientIp = Counter.builder("login.throttle.rejected").tag("key", "ip").register(meterRegistry);
+    }
+
+    /**
+     * Rejects the attempt before any lookup or hashing if either key is still blocked.
+     */
+    public void checkAllowed(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long emailWait = remainingBlock(byEmail.getIfPresent(EmailAddresses.canonicalize(email)), now);
+        if (emailWait > 0) {
+            rejectedByEmail.increment();
+            throw new TooManyLoginAttemptsException(toRetryAfterSeconds(emailWait));
+        }
+        long ipWait = remainingBlock(byClientIp.getIfPresent(clientIp), now);
+        if (ipWait > 0) {
+            rejectedByClientIp.increment();
+            throw new TooManyLoginAttemptsException(toRetryAfterSeconds(ipWait));
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        byEmail.asMap().compute(EmailAddresses.canonicalize(email), (key, attempts) -> fail(attempts, emailFreeAttempts, now));
+        byClientIp.asMap().compute(clientIp, (key, attempts) -> fail(attempts, ipFreeAttempts, now));
+    }
+
+    public void recordSuccess(String email) {
+        // The IP counter is kept so a valid account cannot be used to reset it
+        byEmail.invalidate(EmailAddresses.canonicalize(email));
+    }
+
+    private Attempts fail(Attempts attempts, int freeAttempts, long now) {
+        int failures = attempts == null ? 1 : attempts.failures() + 1;
+        long blockedUntil = 0;
+        if (failures > freeAttempts) {
+            int doublings = Math.min(failures - freeAttempts - 1, 30);
+            long delay = Math.min(baseDelayMillis << doublings, maxDelayMillis);
+            blockedUntil = now + delay;
+        }
+        return new Attempts(failures, blockedUntil);
+    }
+
+    private static long remainingBlock(Attempts attempts, long now) {
+        return attempts == null ? 0 : attempts.blockedUntil() - now;
+    }
+
+    private static long toRetryAfterSeconds(long waitMillis) {
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+
+    private record Attempts(int failures, long blockedUntil) {
+    }
+}
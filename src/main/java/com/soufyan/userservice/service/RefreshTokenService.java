@@ -0,0 +1,139 @@
+package com.soufyan.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.soufyan.userservice.exception.UnauthorizedException;
+import com.soufyan.userservice.model.RefreshToken;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.RefreshTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Issues and rotates refresh tokens, so clients renew access tokens without
+ * sending the password again: a rotation costs one SHA-256 and a few indexed
+ * statements instead of a BCrypt check.
+ * <p>
+ * Tokens are 256 random bits, so a fast unsalted hash is enough to store them.
+ * Each login starts a family; presenting a token that was already rotated
+ * means it leaked, and revokes every token of the family.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration expiration;
+    private final Counter issued;
+    private final Counter rotated;
+    private final Counter reused;
+    private final Counter rejected;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.refresh.expiration:30d}") Duration expiration,
+                               MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.expiration = expiration;
+        this.issued = Counter.builder("jwt.refresh").tag("result", "issued").register(meterRegistry);
+        this.rotated = Counter.builder("jwt.refresh").tag("result", "rotated").register(meterRegistry);
+        this.reused = Counter.builder("jwt.refresh").tag("result", "reused").register(meterRegistry);
+        this.rejected = Counter.builder("jwt.refresh").tag("result", "rejected").register(meterRegistry);
+    }
+
+    /**
+     * Starts a new token family for a user who just proved their password.
+     */
+    @Transactional
+    public String issue(User user) {
+        issued.increment();
+        return store(user, random.nextLong(), Instant.now());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one of the same family. The token's
+     * user is returned along with it, for the new access token.
+     */
+    // Revoking a family must survive the exception that reports it
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public Rotation rotate(String refreshToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(refreshToken)).orElse(null);
+        if (token == null) {
+            rejected.increment();
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+        Instant now = Instant.now();
+        if (token.getUsedAt() != null || refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.deleteByFamilyId(token.getFamilyId());
+            reused.increment();
+            log.warn("Refresh token reuse for user {}, revoked {} tokens", token.getUser().getId(), revoked);
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            rejected.increment();
+            throw new UnauthorizedException("Refresh token expired");
+        }
+        rotated.increment();
+        return new Rotation(token.getUser(), store(token.getUser(), token.getFamilyId(), now));
+    }
+
+    /**
+     * Revokes the token's whole family, as on logout. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    // Used tokens are kept until they expire so their reuse can still be detected
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval:PT1H}",
+            initialDelayString = "${jwt.refresh.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpired(Instant.now());
+        log.debug("Purged {} expired refresh tokens", purged);
+    }
+
+    private String store(User user, long familyId, Instant now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(value));
+        token.setUser(user);
+        token.setFamilyId(familyId);
+        token.setExpiresAt(now.plus(expiration));
+        refreshTokenRepository.save(token);
+        return value;
+    }
+
+    static byte[] hash(String refreshToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
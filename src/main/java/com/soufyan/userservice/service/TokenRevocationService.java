@@ -0,0 +1,130 @@
+package com.soufyan.userservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.soufyan.userservice.config.JwtClaims;
+import com.soufyan.userservice.config.JwtRevocationList;
+import com.soufyan.userservice.config.ReplicaRoutingDataSource;
+import com.soufyan.userservice.model.RevokedToken;
+import com.soufyan.userservice.model.UserTokenCutoff;
+import com.soufyan.userservice.repository.RefreshTokenRepository;
+import com.soufyan.userservice.repository.RevokedTokenRepository;
+import com.soufyan.userservice.repository.UserTokenCutoffRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Persists access token revocations and mirrors them into the
+ * {@link JwtRevocationList} the filter checks. The list is loaded before the
+ * application serves requests and re-read periodically to pick up revocations
+ * made by other instances.
+ * <p>
+ * The initial load runs as a lifecycle phase ahead of the web server rather
+ * than at bean creation, so the context can be refreshed without a database
+ * (the class data sharing training run in the Dockerfile does that).
+ */
+@Service
+public class TokenRevocationService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final UserTokenCutoffRepository userTokenCutoffRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtRevocationList revocationList;
+    private final Duration tokenLifetime;
+    private volatile boolean running;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  UserTokenCutoffRepository userTokenCutoffRepository,
+                                  RefreshTokenRepository refreshTokenRepository,
+                                  JwtRevocationList revocationList,
+                                  @Value("${jwt.expiration}") long expirationMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.userTokenCutoffRepository = userTokenCutoffRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revocationList = revocationList;
+        this.tokenLifetime = Duration.ofMillis(expirationMillis);
+    }
+
+    /**
+     * Revokes one access token. Tokens without an id can only be revoked
+     * through {@link #revokeAllForUser}.
+     */
+    @Transactional
+    public void revoke(JwtClaims claims) {
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            return;
+        }
+        Instant expiresAt = claims.getExpiration().toInstant();
+        revokedTokenRepository.save(new RevokedToken(claims.getId(), expiresAt));
+        revocationList.revokeId(claims.getId(), expiresAt);
+    }
+
+    /**
+     * Revokes every access token issued to the user so far, and their refresh
+     * tokens so no new access token can be obtained with them.
+     */
+    @Transactional
+    public void revokeAllForUser(long userId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(tokenLifetime).plusSeconds(1);
+        userTokenCutoffRepository.save(new UserTokenCutoff(userId, now, expiresAt));
+        refreshTokenRepository.deleteByUserId(userId);
+        revocationList.revokeUserBefore(userId, now, expiresAt);
+    }
+
+    @Override
+    public void start() {
+        sync();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Before the web server, which starts in a phase just below the default
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:PT30S}",
+            initialDelayString = "${jwt.revocation.sync-interval:PT30S}")
+    public void sync() {
+        Instant now = Instant.now();
+        // Read from the primary: replica lag would delay revocations on top of the sync interval
+        ReplicaRoutingDataSource.onPrimary(() -> {
+            for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(now)) {
+                revocationList.revokeId(token.getJti(), token.getExpiresAt());
+            }
+            for (UserTokenCutoff cutoff : userTokenCutoffRepository.findByExpiresAtAfter(now)) {
+                revocationList.revokeUserBefore(cutoff.getUserId(), cutoff.getRevokedBefore(), cutoff.getExpiresAt());
+            }
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}",
+            initialDelayString = "${jwt.revocation.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int purged = revokedTokenRepository.deleteExpired(now) + userTokenCutoffRepository.deleteExpired(now);
+        log.debug("Purged {} expired token revocations", purged);
+    }
+}
@@ -0,0 +1,99 @@
+package com.soufyan.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.mapper.UserMapper;
+import com.soufyan.userservice.model.User;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-process cache of users: the public {@link UserDto} view by id and the full
+ * {@link User} row (needed for password checks) by email. Entries expire after
+ * a TTL and are evicted explicitly by every write path.
+ * <p>
+ * Users are mutable entities, so the cache keeps its own copy and hands out a
+ * fresh one on every hit; no two requests ever share an instance.
+ */
+@Component
+public class UserCache {
+
+    private final boolean enabled;
+    private final Cache<Long, UserDto> byId;
+    private final Cache<String, User> byEmail;
+
+    public UserCache(@Value("${user.cache.enabled:true}") boolean enabled,
+                     @Value("${user.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${user.cache.ttl:5m}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "users.byEmail");
+    }
+
+    public Optional<UserDto> getById(long userId) {
+        return enabled ? Optional.ofNullable(byId.getIfPresent(userId)) : Optional.empty();
+    }
+
+    public Optional<User> getByEmail(String email) {
+        return enabled ? Optional.ofNullable(byEmail.getIfPresent(email)).map(UserMapper::copy) : Optional.empty();
+    }
+
+    public void put(User user) {
+        if (enabled) {
+            byEmail.put(user.getEmail(), UserMapper.copy(user));
+        }
+    }
+
+    public void put(UserDto user) {
+        if (enabled) {
+            byId.put(user.getId(), user);
+        }
+    }
+
+    /**
+     * Evicts the user under its id and every given email, now and again once the
+     * surrounding transaction completes, so a concurrent reader cannot re-cache
+     * the row as it was before the commit.
+     */
+    public void evict(long userId, String... emails) {
+        doEvict(userId, emails);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    doEvict(userId, emails);
+                }
+            });
+        }
+    }
+
+    private void doEvict(long userId, String... emails) {
+        byId.invalidate(userId);
+        for (String email : emails) {
+            if (email != null) {
+                byEmail.invalidate(email);
+            }
+        }
+    }
+}
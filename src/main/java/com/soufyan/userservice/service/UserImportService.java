@@ -0,0 +1,235 @@
+package com.soufyan.userservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.soufyan.userservice.dto.ImportResultDto;
+import com.soufyan.userservice.dto.ImportRowErrorDto;
+import com.soufyan.userservice.dto.RegisterUserDto;
+import com.soufyan.userservice.exception.PasswordHashingUnavailableException;
+import com.soufyan.userservice.mapper.EmailAddresses;
+import com.soufyan.userservice.mapper.UserMapper;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.UserRepository;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Registers users in bulk. Rows are consumed one by one from the caller's
+ * iterator, validated, hashed in parallel and inserted in JDBC batches, each
+ * batch in its own transaction. A bad row is reported and skipped; it never
+ * aborts the rest of the import.
+ * <p>
+ * Hashing runs on the import's own executor, whose size caps how much of the
+ * shared hashing pool imports can take from interactive logins.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final int HASH_ATTEMPTS = 3;
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final EmailFilter emailFilter;
+    private final ExecutorService hashingExecutor;
+    @Value("${user.import.batch-size:500}")
+    private int batchSize = 500;
+    @Value("${user.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    public UserImportService(UserRepository userRepository, PasswordEncoder passwordEncoder, Validator validator,
+                             EmailFilter emailFilter, @Qualifier("importHashingExecutor") ExecutorService hashingExecutor) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.emailFilter = emailFilter;
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    public ImportResultDto importUsers(Iterator<RegisterUserDto> rows) {
+        ImportRun run = new ImportRun();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        long rowNumber = 0;
+        while (true) {
+            RegisterUserDto dto;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                dto = rows.next();
+            } catch (RuntimeException e) {
+                // The reader cannot be trusted to resynchronise after malformed input
+                run.fail(rowNumber + 1, null, "Malformed input, import stopped: " + e.getMessage());
+                break;
+            }
+            rowNumber++;
+
+            String violations = validate(dto);
+            if (violations != null) {
+                run.fail(rowNumber, dto.getEmail(), violations);
+                continue;
+            }
+            if (!run.seenEmails.add(EmailAddresses.canonicalize(dto.getEmail()))) {
+                run.fail(rowNumber, dto.getEmail(), "Duplicate email in import");
+                continue;
+            }
+            batch.add(new PendingRow(rowNumber, dto));
+            if (batch.size() == batchSize) {
+                flush(batch, run);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, run);
+        }
+        log.info("User import finished: {} imported, {} failed", run.imported, run.failed);
+        return new ImportResultDto(run.imported, run.failed, run.retryable, run.errors);
+    }
+
+    private void flush(List<PendingRow> batch, ImportRun run) {
+        // Only emails the filter cannot rule out need the database check
+        List<String> maybeExisting = batch.stream()
+                .map(row -> EmailAddresses.canonicalize(row.dto.getEmail()))
+                .filter(email -> !emailFilter.isDefinitelyNew(email))
+                .toList();
+        Set<String> existing = maybeExisting.isEmpty() ? Set.of() : userRepository.findExistingEmails(maybeExisting);
+
+        List<PendingRow> toInsert = new ArrayList<>(batch.size());
+        for (PendingRow row : batch) {
+            if (existing.contains(EmailAddresses.canonicalize(row.dto.getEmail()))) {
+                run.fail(row.number, row.dto.getEmail(), "Email already exists");
+            } else {
+                toInsert.add(row);
+            }
+        }
+
+        // BCrypt dominates the cost of an import, so rows are hashed in parallel
+        hashAll(toInsert);
+
+        List<PendingRow> hashed = new ArrayList<>(toInsert.size());
+        for (PendingRow row : toInsert) {
+            if (row.user != null) {
+                hashed.add(row);
+            } else {
+                run.retryable++;
+                run.fail(row.number, row.dto.getEmail(), "Password hashing busy, row not imported: submit it again");
+            }
+        }
+        if (hashed.isEmpty()) {
+            return;
+        }
+
+        hashed.forEach(row -> emailFilter.add(row.user.getEmail()));
+        try {
+            userRepository.insertAll(hashed.stream().map(row -> row.user).toList());
+            run.imported += hashed.size();
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent registration took one of the emails: retry row by row
+            // to find the offending rows without losing the others
+            for (PendingRow row : hashed) {
+                try {
+                    userRepository.insertAll(List.of(row.user));
+                    run.imported++;
+                } catch (DataIntegrityViolationException rowFailure) {
+                    run.fail(row.number, row.dto.getEmail(), "Email already exists");
+                }
+            }
+        }
+    }
+
+    private void hashAll(List<PendingRow> rows) {
+        List<Future<?>> pending = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            pending.add(hashingExecutor.submit(() -> hash(row)));
+        }
+        try {
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            pending.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            pending.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void hash(PendingRow row) {
+        for (int attempt = 1; attempt <= HASH_ATTEMPTS; attempt++) {
+            try {
+                User user = UserMapper.registerDtoToEntity(row.dto);
+                user.setPassword(passwordEncoder.encode(row.dto.getPassword()));
+                row.user = user;
+                return;
+            } catch (PasswordHashingUnavailableException e) {
+                // The shared queue is full of interactive work; back off and try again
+                try {
+                    Thread.sleep(50L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private String validate(RegisterUserDto dto) {
+        Set<ConstraintViolation<RegisterUserDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static class PendingRow {
+        private final long number;
+        private final RegisterUserDto dto;
+        private volatile User user;
+
+        PendingRow(long number, RegisterUserDto dto) {
+            this.number = number;
+            this.dto = dto;
+        }
+    }
+
+    private class ImportRun {
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<ImportRowErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+        private long retryable;
+
+        void fail(long row, String email, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportRowErrorDto(row, email, message));
+            }
+        }
+    }
+}
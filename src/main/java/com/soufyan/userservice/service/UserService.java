@@ -1,98 +1,300 @@
 package com.soufyan.userservice.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.soufyan.userservice.config.ReplicaRoutingDataSource;
 import com.soufyan.userservice.dto.DeleteUserDto;
 import com.soufyan.userservice.dto.LoginUserDto;
+import com.soufyan.userservice.dto.PatchUserDto;
 import com.soufyan.userservice.dto.RegisterUserDto;
 import com.soufyan.userservice.dto.UpdateUserDto;
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.dto.UserSearchCriteria;
+import com.soufyan.userservice.dto.UserVersionDto;
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.exception.PasswordHashingUnavailableException;
+import com.soufyan.userservice.exception.PreconditionFailedException;
 import com.soufyan.userservice.exception.UnauthorizedException;
 import com.soufyan.userservice.exception.UserNotFoundException;
 import com.soufyan.userservice.exception.ValidationException;
+import com.soufyan.userservice.mapper.EmailAddresses;
 import com.soufyan.userservice.mapper.UserMapper;
 import com.soufyan.userservice.model.User;
 import com.soufyan.userservice.repository.UserRepository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 @Service
 @Transactional(readOnly = true)
 public class UserService implements UserDetailsService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final EmailFilter emailFilter;
+    private final TokenRevocationService tokenRevocationService;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+    // BCrypt time as seen by each caller, including any wait for the hashing pool
+    private final Timer authenticateHashTimer;
+    private final Timer registerHashTimer;
+    private final Timer deleteHashTimer;
+    private final Timer rehashTimer;
+    @Value("${user.export.fetch-size:500}")
+    private int exportFetchSize;
     
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserCache userCache,
+                       EmailFilter emailFilter, TokenRevocationService tokenRevocationService,
+                       ObjectProvider<ReplicaRoutingDataSource> replicaRouting, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
+        this.emailFilter = emailFilter;
+        this.tokenRevocationService = tokenRevocationService;
+        this.replicaRouting = replicaRouting;
+        this.authenticateHashTimer = hashTimer("authenticate", meterRegistry);
+        this.registerHashTimer = hashTimer("register", meterRegistry);
+        this.deleteHashTimer = hashTimer("delete", meterRegistry);
+        this.rehashTimer = hashTimer("rehash", meterRegistry);
+    }
+
+    private static Timer hashTimer(String method, MeterRegistry meterRegistry) {
+        return Timer.builder("user.service.bcrypt")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        User user = findByEmailCached(EmailAddresses.canonicalize(username)).orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return user;
     }
 
+    // Password hashing runs without a surrounding transaction so no pooled
+    // connection is held while BCrypt works; repository calls use their own.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User authenticateUser(LoginUserDto loginDto) {
-        User user = userRepository.findByEmail(loginDto.getEmail())
+        // Logins often follow their registration by milliseconds, faster than a replica catches up
+        User user = ReplicaRoutingDataSource.onPrimary(() -> findByEmailCached(EmailAddresses.canonicalize(loginDto.getEmail())))
             .orElseThrow(() -> new UnauthorizedException("Invalid credentials"));
         
-        if (!passwordEncoder.matches(loginDto.getPassword(), user.getPassword())) {
+        if (!authenticateHashTimer.record(() -> passwordEncoder.matches(loginDto.getPassword(), user.getPassword()))) {
             throw new UnauthorizedException("Invalid credentials");
         }
+
+        // Hash stored with an older cost or algorithm: upgrade it while we have the raw password
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            rehashPassword(user, loginDto.getPassword());
+        }
+        // The user may have registered on another instance a moment ago; their
+        // next reads carry a token, so from here on the user id routes them
+        rememberWriter(user.getId());
         return user;
     }
-    @Transactional
+
+    private void rehashPassword(User user, String rawPassword) {
+        try {
+            String oldPassword = user.getPassword();
+            String newPassword = rehashTimer.record(() -> passwordEncoder.encode(rawPassword));
+            if (userRepository.updatePasswordIfUnchanged(user.getId(), oldPassword, newPassword) == 1) {
+                // This request's own copy (UserCache never hands out its instance)
+                user.setPassword(newPassword);
+                userCache.evict(user.getId(), user.getEmail());
+            }
+        } catch (PasswordHashingUnavailableException e) {
+            // The login itself succeeded, the upgrade can wait for the next one
+            log.debug("Skipped password rehash for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User registerUser(RegisterUserDto userDto) {
-        if (userRepository.findByEmail(userDto.getEmail()).isPresent()) {
+        String email = EmailAddresses.canonicalize(userDto.getEmail());
+        if (!emailFilter.isDefinitelyNew(email) && findByEmailCached(email).isPresent()) {
             throw new ValidationException("Email already exists");
         }
         
         User user = UserMapper.registerDtoToEntity(userDto);
-        user.setPassword(passwordEncoder.encode(userDto.getPassword()));
-        return userRepository.save(user);
+        // Open to anyone, so it never grants more than USER
+        user.setRole(Role.USER);
+        user.setPassword(registerHashTimer.record(() -> passwordEncoder.encode(userDto.getPassword())));
+        emailFilter.add(user.getEmail());
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent registration of the same email
+            throw new ValidationException("Email already exists");
+        }
+        // Registration is anonymous, so the routing cannot tell this write is theirs
+        rememberWriter(saved.getId());
+        return saved;
     }
 
+    private void rememberWriter(long userId) {
+        replicaRouting.ifAvailable(routing -> routing.rememberWriter(userId));
+    }
+
+    /**
+     * @param expectedVersion version the client last saw (from If-Match), or null
+     *                        to update whatever is current
+     */
+    @Transactional
+    public User updateUser(long userId, UpdateUserDto updateUserDto, Long expectedVersion) {
+        return patchUser(userId, UserMapper.toPatch(updateUserDto), expectedVersion);
+    }
+
+    /**
+     * Applies the fields the patch sets. Only changed columns are written (the
+     * entity uses dynamic updates), and a patch that changes nothing writes
+     * nothing and keeps the version.
+     */
     @Transactional
-    public User updateUser(long userId, UpdateUserDto updateUserDto) {
+    public User patchUser(long userId, PatchUserDto patch, Long expectedVersion) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new UserNotFoundException(userId));
+        if (expectedVersion != null && expectedVersion != user.getVersion()) {
+            throw new PreconditionFailedException("User has been modified");
+        }
         
         // Check email uniqueness if being updated
-        if (updateUserDto.getEmail() != null && !updateUserDto.getEmail().equals(user.getEmail())) {
-            userRepository.findByEmail(updateUserDto.getEmail()).ifPresent(existingUser -> {
+        String newEmail = EmailAddresses.canonicalize(patch.getEmail());
+        boolean emailChanged = newEmail != null && !newEmail.equals(user.getEmail());
+        if (emailChanged && !emailFilter.isDefinitelyNew(newEmail)) {
+            userRepository.findByEmail(newEmail).ifPresent(existingUser -> {
                 if (existingUser.getId() != userId) {
                     throw new ValidationException("Email already exists");
                 }
             });
         }
         
-        UserMapper.updateUserFromDto(updateUserDto, user);
-        return userRepository.save(user);
+        String oldEmail = user.getEmail();
+        if (!UserMapper.applyPatch(patch, user)) {
+            return user;
+        }
+        if (emailChanged) {
+            // The old email stays in the filter, see EmailFilter
+            emailFilter.add(user.getEmail());
+        }
+        User saved;
+        try {
+            saved = userRepository.save(user);
+            // The unique index is the only check when the filter ruled the email new
+            userRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (!emailChanged) {
+                throw e;
+            }
+            // Lost a race with a concurrent registration or change to the same email
+            throw new ValidationException("Email already exists");
+        }
+        userCache.evict(userId, oldEmail, saved.getEmail());
+        return saved;
     }
-    
-    public User loadUserById(long userId) {
-        return userRepository.findById(userId)
+
+    public UserDto loadUserById(long userId) {
+        return findByIdCached(userId)
             .orElseThrow(() -> new UserNotFoundException(userId));
     }
 
-    public Page<User> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable);
+    // Version lookups answer conditional requests: from the cache when the user is
+    // in it, otherwise with a query that reads no more than id and version
+    public long getUserVersion(long userId) {
+        Optional<UserDto> cached = userCache.getById(userId);
+        if (cached.isPresent()) {
+            return cached.get().getVersion();
+        }
+        return userRepository.findVersionById(userId)
+            .orElseThrow(() -> new UserNotFoundException(userId));
     }
 
-    @Transactional
+    public Page<UserVersionDto> getAllUserVersions(Pageable pageable) {
+        return userRepository.findAllVersions(pageable);
+    }
+
+    public List<UserVersionDto> getUserVersionsAfter(long afterId, int limit) {
+        return userRepository.findVersionsByIdGreaterThan(afterId, Limit.of(limit));
+    }
+
+    public Page<UserDto> getAllUsers(Pageable pageable) {
+        return userRepository.findAllDto(pageable);
+    }
+
+    public List<UserDto> getUsersAfter(long afterId, int limit) {
+        return userRepository.findDtoByIdGreaterThan(afterId, Limit.of(limit));
+    }
+
+    public List<UserDto> searchUsers(UserSearchCriteria criteria, int limit) {
+        if (criteria.getCity() != null && criteria.getCountry() == null) {
+            throw new ValidationException("city can only be searched together with country");
+        }
+        // No index keeps a filtered result in id order; it would be read whole and sorted
+        if (!criteria.isSortByName() && criteria.hasFilters()) {
+            throw new ValidationException("filtered searches can only be sorted by name");
+        }
+        return userRepository.search(criteria, limit);
+    }
+
+    // Runs inside the class-level read-only transaction that keeps the cursor open
+    public void exportUsers(Consumer<UserDto> sink) {
+        try (Stream<UserDto> users = userRepository.streamAllAsDto(exportFetchSize)) {
+            users.forEach(sink);
+        }
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User deleteUser(long userId, DeleteUserDto deleteUserDto) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new UserNotFoundException(userId));
         
-        if (!passwordEncoder.matches(deleteUserDto.getPassword(), user.getPassword())) {
+        if (!deleteHashTimer.record(() -> passwordEncoder.matches(deleteUserDto.getPassword(), user.getPassword()))) {
             throw new UnauthorizedException("Invalid password");
         }
         
         userRepository.delete(user);
+        // Tokens already handed out would otherwise stay valid until they expire
+        tokenRevocationService.revokeAllForUser(userId);
+        userCache.evict(userId, user.getEmail());
         return user;
     }
+
+    // Read-through lookups; write paths always load a fresh row from the repository
+    private Optional<UserDto> findByIdCached(long userId) {
+        Optional<UserDto> cached = userCache.getById(userId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<UserDto> loaded = userRepository.findDtoById(userId);
+        loaded.ifPresent(userCache::put);
+        return loaded;
+    }
+
+    private Optional<User> findByEmailCached(String email) {
+        Optional<User> cached = userCache.getByEmail(email);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<User> loaded = userRepository.findByEmail(email);
+        loaded.ifPresent(userCache::put);
+        return loaded;
+    }
 }
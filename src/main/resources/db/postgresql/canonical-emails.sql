@@ -0,0 +1,19 @@
+-- Canonical emails: lower-case, no surrounding whitespace (see EmailAddresses).
+-- Run once before deploying the release that canonicalizes emails; the service
+-- only looks up canonical values, so rows left in mixed case can no longer log in.
+
+-- 1. Accounts that collide once case is ignored. The update below fails on the
+--    unique constraint while any remain; merge or rename them by hand first.
+SELECT lower(trim(email)) AS canonical_email, array_agg(id ORDER BY id) AS user_ids
+FROM users
+GROUP BY lower(trim(email))
+HAVING count(*) > 1;
+
+-- 2. Canonicalize the stored values.
+UPDATE users SET email = lower(trim(email)) WHERE email <> lower(trim(email));
+
+-- 3. Case-insensitive uniqueness for every writer, including ones that bypass
+--    the service. Lookups compare canonical values on email and are served by
+--    the existing unique index on that column. CONCURRENTLY cannot run inside
+--    a transaction block.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS users_email_lower_key ON users (lower(email));
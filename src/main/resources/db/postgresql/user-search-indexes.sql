@@ -0,0 +1,22 @@
+-- Indexes behind GET /user/search (declared on User, so ddl-auto would create
+-- them too, but with a plain CREATE INDEX that blocks writes to users while it
+-- runs, and on a last_name column the name prefix cannot seek). Run before
+-- deploying the release with the search endpoint; Hibernate then finds them by
+-- name and leaves them alone.
+
+-- 1. Byte-order collation for last_name. Under a linguistic collation a btree
+--    cannot serve LIKE 'prefix%', and a text_pattern_ops index could not serve
+--    the ORDER BY last_name the search pages by; with "C" one index does both.
+--    Name order becomes code point order (upper case before lower case). The
+--    heap is not rewritten, but indexes on last_name are rebuilt under an
+--    exclusive lock, so run this before step 2 creates them.
+ALTER TABLE users ALTER COLUMN last_name TYPE varchar(255) COLLATE "C";
+
+-- 2. One index per filter combination, each ending in the name order.
+--    CONCURRENTLY cannot run inside a transaction block.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_country_city_role_last_name ON users (country, city, role, last_name, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_country_city_last_name ON users (country, city, last_name, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_country_role_last_name ON users (country, role, last_name, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_country_last_name ON users (country, last_name, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_last_name ON users (last_name, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_role_last_name ON users (role, last_name, id);
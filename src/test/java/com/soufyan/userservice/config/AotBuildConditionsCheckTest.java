@@ -0,0 +1,63 @@
+package com.soufyan.userservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.SpringProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AotBuildConditionsCheckTest {
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    @BeforeEach
+    void runAsAot() {
+        SpringProperties.setProperty(AotDetector.AOT_ENABLED, "true");
+    }
+
+    @AfterEach
+    void reset() {
+        SpringProperties.setProperty(AotDetector.AOT_ENABLED, null);
+    }
+
+    @Test
+    void propertySetAfterTheBuild_FailsStartup() {
+        environment.setProperty("spring.threads.virtual.enabled", "true");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, this::check);
+        assertTrue(e.getMessage().startsWith("spring.threads.virtual.enabled is set"), e.getMessage());
+    }
+
+    @Test
+    void propertyDroppedAfterTheBuild_FailsStartup() {
+        beanFactory.registerBeanDefinition("replicaDataSourceConfig", new RootBeanDefinition(ReplicaDataSourceConfig.class));
+
+        assertThrows(IllegalStateException.class, this::check);
+    }
+
+    @Test
+    void propertiesMatchingTheBuild_Pass() {
+        environment.setProperty("spring.threads.virtual.enabled", "true");
+        beanFactory.registerBeanDefinition("virtualThreadPinningMonitor", new RootBeanDefinition(VirtualThreadPinningMonitor.class));
+
+        assertDoesNotThrow(this::check);
+    }
+
+    @Test
+    void withoutAot_NothingIsChecked() {
+        SpringProperties.setProperty(AotDetector.AOT_ENABLED, null);
+        environment.setProperty("spring.threads.virtual.enabled", "true");
+
+        assertDoesNotThrow(this::check);
+    }
+
+    private void check() {
+        new AotBuildConditionsCheck(environment, beanFactory).afterSingletonsInstantiated();
+    }
+}
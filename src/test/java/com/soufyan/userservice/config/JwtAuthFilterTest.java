@@ -0,0 +1,113 @@
+package com.soufyan.userservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthFilterTest {
+
+    private static final String SECRET = "testSecretKeyForJunitTestingPurposesOnly123456789";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 3600000);
+    private SimpleMeterRegistry registry;
+    private JwtRevocationList revocationList;
+    private JwtAuthFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        revocationList = new JwtRevocationList(registry);
+        filter = new JwtAuthFilter(jwtUtil, new JwtTokenCache(true, 100, registry), revocationList, registry);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void validToken_AuthenticatesAndTimesVerification() throws Exception {
+        String token = jwtUtil.generateToken("john@example.com", 42L, "USER");
+
+        Authentication first = filter(token);
+        Authentication second = filter(token);
+
+        assertNotNull(first);
+        assertEquals("john@example.com", first.getName());
+        assertEquals(42L, first.getDetails());
+        assertNotNull(second);
+        assertEquals(1, verifications("valid"));
+        assertEquals(1, verifications("cached"));
+    }
+
+    @Test
+    void expiredToken_IsRejectedAndTimedAsExpired() throws Exception {
+        String token = new JwtUtil(SECRET, -1000).generateToken("john@example.com", 42L, "USER");
+
+        assertNull(filter(token));
+        assertEquals(1, verifications("expired"));
+    }
+
+    @Test
+    void foreignSignature_IsRejectedAndTimedAsBadSignature() throws Exception {
+        String token = new JwtUtil("anotherSecretKeyForJunitTestingPurposesOnly12345", 3600000)
+                .generateToken("john@example.com", 42L, "ADMIN");
+
+        assertNull(filter(token));
+        assertEquals(1, verifications("bad_signature"));
+    }
+
+    @Test
+    void garbageToken_IsRejectedAndTimedAsMalformed() throws Exception {
+        assertNull(filter("not-a-jwt"));
+        assertEquals(1, verifications("malformed"));
+    }
+
+    @Test
+    void revokedToken_IsRejectedEvenWhenCached() throws Exception {
+        String token = jwtUtil.generateToken("john@example.com", 42L, "USER");
+        JwtClaims claims = jwtUtil.parseClaims(token);
+        assertNotNull(filter(token));
+
+        revocationList.revokeId(claims.getId(), claims.getExpiration().toInstant());
+
+        assertNull(filter(token));
+        assertEquals(1, verifications("revoked"));
+    }
+
+    @Test
+    void userCutoff_RevokesEarlierTokensOnly() throws Exception {
+        String before = jwtUtil.generateToken("john@example.com", 42L, "USER");
+        String otherUser = jwtUtil.generateToken("jane@example.com", 7L, "USER");
+
+        revocationList.revokeUserBefore(42L, Instant.now(), Instant.now().plusSeconds(3600));
+
+        assertNull(filter(before));
+        assertNotNull(filter(otherUser));
+        // iat has second precision, so only a token from a later second passes
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10);
+        assertNotNull(filter(jwtUtil.generateToken("john@example.com", 42L, "USER")));
+    }
+
+    private Authentication filter(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private long verifications(String outcome) {
+        return registry.get("jwt.verification").tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,119 @@
+package com.soufyan.userservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeysTest {
+
+    @TempDir
+    Path keyDir;
+
+    @Test
+    void load_EdDsa_SignsWithHighestKidAndVerifiesLocally() throws Exception {
+        writeKeyPair("Ed25519", "2026-01", true);
+        writeKeyPair("Ed25519", "2026-07", true);
+        JwtUtil jwtUtil = new JwtUtil(JwtKeys.load("EdDSA", keyDir, ""), 3600000);
+
+        String token = jwtUtil.generateToken("john@example.com", 42L, "USER");
+
+        assertEquals("2026-07", header(token).get("kid"));
+        assertEquals("EdDSA", header(token).get("alg"));
+        assertEquals(42L, jwtUtil.parseClaims(token).getUserId());
+    }
+
+    @Test
+    void load_AfterRotation_TokensOfRetiredKeyStillVerify() throws Exception {
+        writeKeyPair("RSA", "2026-01", true);
+        String oldToken = new JwtUtil(JwtKeys.load("RS256", keyDir, ""), 3600000)
+                .generateToken("john@example.com", 42L, "USER");
+
+        // Retire the old private key and activate a new pair
+        Files.delete(keyDir.resolve("2026-01.private.pem"));
+        writeKeyPair("RSA", "2026-07", true);
+        JwtUtil rotated = new JwtUtil(JwtKeys.load("RS256", keyDir, ""), 3600000);
+
+        assertEquals("john@example.com", rotated.parseClaims(oldToken).getUsername());
+        assertEquals("2026-07", header(rotated.generateToken("jane@example.com", 7L, "USER")).get("kid"));
+    }
+
+    @Test
+    void parseClaims_UnknownKidOrHmacToken_IsRejected() throws Exception {
+        writeKeyPair("Ed25519", "current", true);
+        JwtUtil jwtUtil = new JwtUtil(JwtKeys.load("EdDSA", keyDir, ""), 3600000);
+
+        Path otherDir = Files.createDirectory(keyDir.resolve("other"));
+        writeKeyPair("Ed25519", "unknown", true, otherDir);
+        String foreign = new JwtUtil(JwtKeys.load("EdDSA", otherDir, ""), 3600000)
+                .generateToken("john@example.com", 42L, "ADMIN");
+        String hmac = new JwtUtil("testSecretKeyForJunitTestingPurposesOnly123456789", 3600000)
+                .generateToken("john@example.com", 42L, "ADMIN");
+
+        assertThrows(SignatureException.class, () -> jwtUtil.parseClaims(foreign));
+        assertThrows(SignatureException.class, () -> jwtUtil.parseClaims(hmac));
+    }
+
+    @Test
+    void jwks_PublishesOnlyPublicKeys() throws Exception {
+        writeKeyPair("RSA", "2026-01", false);
+        writeKeyPair("RSA", "2026-07", true);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) JwtKeys.load("RS256", keyDir, "").jwks().get("keys");
+
+        assertEquals(List.of("2026-01", "2026-07"), keys.stream().map(key -> key.get("kid")).toList());
+        for (Map<String, Object> key : keys) {
+            assertEquals("RSA", key.get("kty"));
+            assertEquals("RS256", key.get("alg"));
+            assertEquals("sig", key.get("use"));
+            assertNotNull(key.get("n"));
+            assertFalse(key.containsKey("d"));
+        }
+        assertEquals(List.of(), JwtKeys.hmac("testSecretKeyForJunitTestingPurposesOnly123456789").jwks().get("keys"));
+    }
+
+    @Test
+    void load_NoPrivateKey_FailsFast() throws Exception {
+        writeKeyPair("Ed25519", "retired", false);
+
+        assertThrows(IllegalStateException.class, () -> JwtKeys.load("EdDSA", keyDir, ""));
+    }
+
+    private void writeKeyPair(String algorithm, String kid, boolean withPrivateKey) throws Exception {
+        writeKeyPair(algorithm, kid, withPrivateKey, keyDir);
+    }
+
+    private static void writeKeyPair(String algorithm, String kid, boolean withPrivateKey, Path dir) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        if ("RSA".equals(algorithm)) {
+            generator.initialize(2048);
+        }
+        KeyPair pair = generator.generateKeyPair();
+        Files.writeString(dir.resolve(kid + ".public.pem"), pem("PUBLIC KEY", pair.getPublic().getEncoded()));
+        if (withPrivateKey) {
+            Files.writeString(dir.resolve(kid + ".private.pem"), pem("PRIVATE KEY", pair.getPrivate().getEncoded()));
+        }
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder().encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+
+    private static Map<?, ?> header(String token) throws Exception {
+        byte[] json = Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')));
+        return new ObjectMapper().readValue(json, Map.class);
+    }
+}
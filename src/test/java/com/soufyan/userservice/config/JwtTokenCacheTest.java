@@ -0,0 +1,77 @@
+package com.soufyan.userservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenCacheTest {
+
+    @Test
+    void get_SameToken_VerifiesOnce() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtTokenCache cache = new JwtTokenCache(true, 100, registry);
+        AtomicInteger verifications = new AtomicInteger();
+        Function<String, JwtClaims> verifier = token -> {
+            verifications.incrementAndGet();
+            return claimsExpiringIn(60_000);
+        };
+
+        JwtClaims first = cache.get("token", verifier);
+        JwtClaims second = cache.get("token", verifier);
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_ExpiredClaims_AreNotServedFromCache() {
+        JwtTokenCache cache = new JwtTokenCache(true, 100, new SimpleMeterRegistry());
+        AtomicInteger verifications = new AtomicInteger();
+        Function<String, JwtClaims> verifier = token -> {
+            verifications.incrementAndGet();
+            return claimsExpiringIn(-1);
+        };
+
+        cache.get("token", verifier);
+        cache.get("token", verifier);
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void get_VerificationFailure_IsNotCached() {
+        JwtTokenCache cache = new JwtTokenCache(true, 100, new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, () -> cache.get("token", token -> {
+            throw new IllegalStateException("bad signature");
+        }));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_Disabled_AlwaysVerifies() {
+        JwtTokenCache cache = new JwtTokenCache(false, 100, new SimpleMeterRegistry());
+        AtomicInteger verifications = new AtomicInteger();
+
+        cache.get("token", token -> {
+            verifications.incrementAndGet();
+            return claimsExpiringIn(60_000);
+        });
+        cache.get("token", token -> {
+            verifications.incrementAndGet();
+            return claimsExpiringIn(60_000);
+        });
+
+        assertEquals(2, verifications.get());
+    }
+
+    private static JwtClaims claimsExpiringIn(long millis) {
+        return new JwtClaims("john@example.com", 1L, "USER", new Date(System.currentTimeMillis() + millis), null, null);
+    }
+}
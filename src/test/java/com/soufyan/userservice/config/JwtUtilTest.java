@@ -0,0 +1,59 @@
+package com.soufyan.userservice.config;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKeyForJunitTestingPurposesOnly123456789";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3600000);
+    }
+
+    @Test
+    void parseClaims_ReturnsAllClaims() {
+        String token = jwtUtil.generateToken("john@example.com", 42L, "USER");
+
+        JwtClaims claims = jwtUtil.parseClaims(token);
+
+        assertEquals("john@example.com", claims.getUsername());
+        assertEquals(42L, claims.getUserId());
+        assertEquals("USER", claims.getRole());
+        assertNotNull(claims.getExpiration());
+    }
+
+    @Test
+    void extractMethods_MatchParsedClaims() {
+        String token = jwtUtil.generateToken("john@example.com", 42L, "ADMIN");
+
+        assertEquals("john@example.com", jwtUtil.extractUsername(token));
+        assertEquals(42L, jwtUtil.extractUserId(token));
+        assertEquals("ADMIN", jwtUtil.extractRole(token));
+        assertTrue(jwtUtil.isTokenValid(token, "john@example.com"));
+        assertFalse(jwtUtil.isTokenValid(token, "jane@example.com"));
+    }
+
+    @Test
+    void parseClaims_ExpiredToken_ThrowsException() {
+        JwtUtil expiredUtil = new JwtUtil(SECRET, -1000);
+        String token = expiredUtil.generateToken("john@example.com", 42L, "USER");
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseClaims(token));
+    }
+
+    @Test
+    void parseClaims_ForeignSignature_ThrowsException() {
+        JwtUtil otherUtil = new JwtUtil("anotherSecretKeyForJunitTestingPurposesOnly987654321", 3600000);
+        String token = otherUtil.generateToken("john@example.com", 42L, "USER");
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseClaims(token));
+    }
+}
@@ -0,0 +1,197 @@
+package com.soufyan.userservice.config;
+
+import com.soufyan.userservice.dto.LoginUserDto;
+import com.soufyan.userservice.dto.RegisterUserDto;
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.exception.UserNotFoundException;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.service.RefreshTokenService;
+import com.soufyan.userservice.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and its replica. The
+ * replica gets the primary's schema but never its rows, so a query's result
+ * shows which of the two answered it.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.replica.jdbc-url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+    "spring.datasource.replica.read-your-writes-window=1m",
+    "user.cache.enabled=false",
+    // Built at startup, before the test copies the schema to the replica
+    "user.email-filter.enabled=false"
+})
+class ReplicaRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate primary;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = new JdbcTemplate(primaryDataSource);
+        // The replica pool is read-only, so its schema is copied over a separate connection
+        List<String> schema = primary.queryForList("SCRIPT NODATA", String.class);
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL);
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : schema) {
+                statement.execute(sql);
+            }
+            statement.execute(insertUser(1, "Replica"));
+        }
+        primary.update("delete from refresh_tokens");
+        primary.update("delete from users");
+        primary.update(insertUser(1, "Primary"));
+        primary.update(insertUser(2, "Primary"));
+        // Clear of the ids other tests authenticate as, since recent writers outlive a test
+        primary.update("alter table users alter column id restart with 100");
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactions_GoToReplica() {
+        assertEquals("Replica", userService.loadUserById(1).getFirstName());
+        // Only on the primary
+        assertThrows(UserNotFoundException.class, () -> userService.loadUserById(2));
+        assertTrue(meterRegistry.get("datasource.routing.reads").tag("target", "replica").counter().count() > 0);
+    }
+
+    @Test
+    void readsInsideWriteTransaction_StayOnPrimary() {
+        UserDto user = transactionTemplate.execute(status -> userService.loadUserById(1));
+
+        assertEquals("Primary", user.getFirstName());
+    }
+
+    @Test
+    void userWhoJustWrote_ReadsFromPrimary() {
+        authenticateAs(1L);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("update users set city = 'Boston' where id = 1"));
+
+        assertEquals("Primary", userService.loadUserById(1).getFirstName());
+
+        authenticateAs(3L);
+        assertEquals("Replica", userService.loadUserById(1).getFirstName());
+    }
+
+    @Test
+    void anonymousRequests_AreRoutedWithoutUserId() {
+        authenticateAnonymously();
+
+        assertEquals("Replica", userService.loadUserById(1).getFirstName());
+        assertEquals("Primary", ReplicaRoutingDataSource.onPrimary(() -> userService.loadUserById(1)).getFirstName());
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("update users set city = 'Boston' where id = 1"));
+    }
+
+    @Test
+    void registerThenLogin_NextReadStaysOnPrimary() {
+        // The same requests as POST /auth/register and POST /auth/login, both anonymous
+        authenticateAnonymously();
+        User registered = userService.registerUser(new RegisterUserDto("Jane", "Smith", "jane@example.com",
+                "+9876543210", "password123", "Canada", "Toronto", "456 Oak Ave", Role.USER));
+        User loggedIn = userService.authenticateUser(new LoginUserDto("jane@example.com", "password123"));
+        refreshTokenService.issue(loggedIn);
+
+        // GET /user/ with the token from the login; the replica has never seen Jane
+        authenticateAs(registered.getId());
+        assertEquals("Jane", userService.loadUserById(registered.getId()).getFirstName());
+    }
+
+    @Test
+    void loginAfterRegisteringElsewhere_NextReadStaysOnPrimary() {
+        // Registered through another instance, whose recent writers this one never saw
+        primary.update("update users set first_name = 'Elsewhere', password = ? where id = 2",
+                passwordEncoder.encode("password123"));
+
+        authenticateAnonymously();
+        userService.authenticateUser(new LoginUserDto("user2@example.com", "password123"));
+
+        authenticateAs(2L);
+        assertEquals("Elsewhere", userService.loadUserById(2).getFirstName());
+    }
+
+    @Test
+    void eachPoolHasItsOwnMetrics() {
+        userService.loadUserById(1);
+        transactionTemplate.execute(status -> userService.loadUserById(1));
+
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "replica").gauge());
+    }
+
+    // What the anonymous filter leaves in the context on /auth/login and /auth/register
+    private static void authenticateAnonymously() {
+        AnonymousAuthenticationToken anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        anonymous.setDetails(new WebAuthenticationDetails("127.0.0.1", null));
+        SecurityContextHolder.getContext().setAuthentication(anonymous);
+    }
+
+    private static void authenticateAs(long userId) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken("user" + userId + "@example.com", null, List.of());
+        authentication.setDetails(userId);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private static String insertUser(long id, String firstName) {
+        return "insert into users (id, first_name, last_name, email, phone, password, country, city, street, role) "
+                + "values (" + id + ", '" + firstName + "', 'Doe', 'user" + id + "@example.com', '+1234567890', "
+                + "'encoded', 'USA', 'New York', '123 Main St', 'USER')";
+    }
+}
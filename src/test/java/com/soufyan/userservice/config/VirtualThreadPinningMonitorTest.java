@@ -0,0 +1,54 @@
+package com.soufyan.userservice.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+    private SimpleMeterRegistry registry;
+    private VirtualThreadPinningMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), 12, registry);
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void blockingInsideSynchronized_IsReportedWithItsSite() throws InterruptedException {
+        Thread.ofVirtual().start(this::sleepWhileHoldingMonitor).join();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            Timer timer = registry.find("jvm.threads.virtual.pinned")
+                    .tag("site", VirtualThreadPinningMonitorTest.class.getName() + ".sleepWhileHoldingMonitor")
+                    .timer();
+            assertNotNull(timer);
+            assertEquals(1, timer.count());
+        });
+    }
+
+    private void sleepWhileHoldingMonitor() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
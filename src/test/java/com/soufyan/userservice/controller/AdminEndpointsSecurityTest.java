@@ -0,0 +1,91 @@
+package com.soufyan.userservice.controller;
+
+import com.soufyan.userservice.config.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The export, import and metrics endpoints are only protected by the ADMIN role check.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+// Metrics export (and with it /actuator/prometheus) is off in tests by default
+@AutoConfigureObservability(tracing = false)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:bulktest",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class AdminEndpointsSecurityTest {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final ResultMatcher DENIED = result -> {
+        int status = result.getResponse().getStatus();
+        if (status != 401 && status != 403) {
+            throw new AssertionError("Expected 401 or 403 but was " + status);
+        }
+    };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void anonymous_IsDenied() throws Exception {
+        mockMvc.perform(get("/user/export")).andExpect(DENIED);
+        mockMvc.perform(post("/user/import").contentType(NDJSON).content("")).andExpect(DENIED);
+    }
+
+    @Test
+    void user_IsDenied() throws Exception {
+        String token = bearer("USER");
+
+        mockMvc.perform(get("/user/export").header(HttpHeaders.AUTHORIZATION, token)).andExpect(DENIED);
+        mockMvc.perform(post("/user/import").header(HttpHeaders.AUTHORIZATION, token).contentType(NDJSON).content(""))
+                .andExpect(DENIED);
+    }
+
+    @Test
+    void admin_IsAllowed() throws Exception {
+        mockMvc.perform(get("/user/export").header(HttpHeaders.AUTHORIZATION, bearer("ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void metrics_OnlyForAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(DENIED);
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, bearer("USER"))).andExpect(DENIED);
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, bearer("ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void health_IsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void register_AsAdmin_CreatesUser() throws Exception {
+        mockMvc.perform(post("/auth/register").contentType("application/json").content("""
+                {"firstName":"Eve","lastName":"Smith","email":"eve@example.com","phone":"+1234567890",
+                 "password":"password123","country":"USA","city":"Boston","street":"1 Main St","role":"ADMIN"}"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.role").value("USER"));
+    }
+
+    private String bearer(String role) {
+        return "Bearer " + jwtUtil.generateToken(role.toLowerCase() + "@example.com", 1L, role);
+    }
+}
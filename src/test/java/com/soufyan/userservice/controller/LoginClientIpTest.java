@@ -0,0 +1,51 @@
+package com.soufyan.userservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The per-IP login throttle behind a proxy: the test client connects over
+ * loopback, which is a trusted proxy, the way the ingress does in the cluster.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:logintest",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "login.throttle.ip-free-attempts=2",
+    "login.throttle.base-delay=1m"
+})
+class LoginClientIpTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void ipThrottle_KeysOnForwardedClientAddress() {
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login("user" + i + "@example.com", "203.0.113.1"));
+        }
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, login("someone@example.com", "203.0.113.1"));
+        // Another client behind the same proxy is not affected
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login("someone@example.com", "203.0.113.2"));
+    }
+
+    private HttpStatus login(String email, String forwardedFor) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", forwardedFor);
+        String body = "{\"email\":\"" + email + "\",\"password\":\"Password123!\"}";
+        return HttpStatus.valueOf(restTemplate.postForEntity("/auth/login", new HttpEntity<>(body, headers), String.class)
+                .getStatusCode().value());
+    }
+}
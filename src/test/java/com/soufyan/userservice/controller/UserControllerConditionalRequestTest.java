@@ -0,0 +1,114 @@
+package com.soufyan.userservice.controller;
+
+import com.soufyan.userservice.config.JwtUtil;
+import com.soufyan.userservice.dto.PatchUserDto;
+import com.soufyan.userservice.dto.UserVersionDto;
+import com.soufyan.userservice.mapper.UserETags;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * If-None-Match is answered from versions alone, without loading the users;
+ * If-Match failures map to 412.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:conditionaltest",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class UserControllerConditionalRequestTest {
+
+    private static final List<UserVersionDto> VERSIONS = List.of(new UserVersionDto(1L, 3L), new UserVersionDto(2L, 0L));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private UserService userService;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        token = "Bearer " + jwtUtil.generateToken("john@example.com", 1L, "USER");
+    }
+
+    @Test
+    void get_MatchingIfNoneMatch_NotModifiedWithoutLoadingUser() throws Exception {
+        when(userService.getUserVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(get("/user/").header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, "\"1.3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.3\""));
+        verify(userService, never()).loadUserById(anyLong());
+    }
+
+    @Test
+    void getAllUsers_MatchingIfNoneMatch_NotModifiedWithoutLoadingUsers() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 10, Sort.by("id"));
+        when(userService.getAllUserVersions(pageable)).thenReturn(new PageImpl<>(VERSIONS, pageable, 2));
+        String etag = UserETags.ofPage(2, VERSIONS);
+
+        mockMvc.perform(get("/user/all").header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(userService, never()).getAllUsers(any());
+    }
+
+    @Test
+    void getAllUsersAfter_MatchingIfNoneMatch_NotModifiedWithoutLoadingUsers() throws Exception {
+        when(userService.getUserVersionsAfter(0L, 11)).thenReturn(VERSIONS);
+        String etag = UserETags.ofPage(0, VERSIONS);
+
+        mockMvc.perform(get("/user/all").param("cursor", "").header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+                .andExpect(status().isNotModified());
+        verify(userService, never()).getUsersAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void patch_StaleIfMatch_PreconditionFailed() throws Exception {
+        mockMvc.perform(patch("/user/").header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MATCH, "\"2.3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"firstName\":\"Johnny\"}"))
+                .andExpect(status().isPreconditionFailed());
+        verify(userService, never()).patchUser(anyLong(), any(), any());
+    }
+
+    @Test
+    void patch_ConcurrentUpdate_PreconditionFailedOnlyWithIfMatch() throws Exception {
+        when(userService.patchUser(eq(1L), any(PatchUserDto.class), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(User.class, 1L));
+
+        mockMvc.perform(patch("/user/").header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_MATCH, "\"1.3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"firstName\":\"Johnny\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/user/").header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"firstName\":\"Johnny\"}"))
+                .andExpect(status().isConflict());
+    }
+}
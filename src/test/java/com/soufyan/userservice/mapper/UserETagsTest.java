@@ -0,0 +1,53 @@
+package com.soufyan.userservice.mapper;
+
+import com.soufyan.userservice.dto.UserVersionDto;
+import com.soufyan.userservice.exception.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserETagsTest {
+
+    @Test
+    void matches_ComparesWeaklyAgainstEveryListedTag() {
+        String etag = UserETags.of(1, 3);
+
+        assertTrue(UserETags.matches("\"1.3\"", etag));
+        assertTrue(UserETags.matches("W/\"1.3\"", etag));
+        assertTrue(UserETags.matches("\"1.2\", \"1.3\"", etag));
+        assertTrue(UserETags.matches("*", etag));
+        assertFalse(UserETags.matches("\"1.2\", \"2.3\"", etag));
+    }
+
+    @Test
+    void matches_WeakPageTag() {
+        String etag = UserETags.ofPage(5, List.of(new UserVersionDto(1L, 3L)));
+
+        assertTrue(etag.startsWith("W/\""));
+        assertTrue(UserETags.matches(etag, etag));
+        assertTrue(UserETags.matches(etag.substring(2), etag));
+        assertFalse(UserETags.matches(UserETags.ofPage(5, List.of(new UserVersionDto(1L, 4L))), etag));
+        assertFalse(UserETags.matches(UserETags.ofPage(6, List.of(new UserVersionDto(1L, 3L))), etag));
+    }
+
+    @Test
+    void expectedVersion_NoHeaderOrWildcard_AcceptsAnyVersion() {
+        assertNull(UserETags.expectedVersion(null, 1));
+        assertNull(UserETags.expectedVersion(" * ", 1));
+    }
+
+    @Test
+    void expectedVersion_OwnTag_ReturnsItsVersion() {
+        assertEquals(3L, UserETags.expectedVersion(UserETags.of(1, 3), 1));
+    }
+
+    @Test
+    void expectedVersion_TagThatCannotMatch_FailsPrecondition() {
+        // Another user's tag, If-Match's strong comparison never matches a weak tag, malformed tags
+        for (String ifMatch : new String[] {"\"2.3\"", "\"11.3\"", "W/\"1.3\"", "\"1.\"", "\"1.x\"", "1.3", "\"1.3"}) {
+            assertThrows(PreconditionFailedException.class, () -> UserETags.expectedVersion(ifMatch, 1), ifMatch);
+        }
+    }
+}
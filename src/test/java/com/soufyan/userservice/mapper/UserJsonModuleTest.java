@@ -0,0 +1,54 @@
+package com.soufyan.userservice.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soufyan.userservice.dto.LoginResponseDto;
+import com.soufyan.userservice.dto.PageDto;
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.enums.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The hand-written serializers must keep writing what the bean serializers
+ * would; a field added to a DTO but not to its serializer fails here.
+ */
+class UserJsonModuleTest {
+
+    private final ObjectMapper beanMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper moduleMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new UserJsonModule()).build();
+
+    @Test
+    void userDto_MatchesBeanSerializer() throws Exception {
+        UserDto user = new UserDto(1L, "John", "Doe", "john@example.com", "+1234567890", "USA", "New York", "123 Main St", Role.USER, 7);
+
+        assertSameJson(user);
+        assertEquals(beanMapper.writeValueAsString(user), moduleMapper.writeValueAsString(user));
+    }
+
+    @Test
+    void userDto_WithNulls_MatchesBeanSerializer() throws Exception {
+        assertSameJson(new UserDto());
+    }
+
+    @Test
+    void loginResponse_MatchesBeanSerializer() throws Exception {
+        assertSameJson(new LoginResponseDto("access", 3600000, "refresh"));
+        assertSameJson(new LoginResponseDto("access", 3600000, null));
+    }
+
+    @Test
+    void page_MatchesBeanSerializer() throws Exception {
+        UserDto user = new UserDto(2L, "Jane", "Smith", "jane@example.com", "+9876543210", "Canada", "Toronto", "456 Oak Ave", Role.ADMIN, 0);
+
+        assertSameJson(new PageDto<>(List.of(user, user), 3, 2, 41, 21));
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertEquals(beanMapper.readTree(beanMapper.writeValueAsBytes(value)),
+                moduleMapper.readTree(moduleMapper.writeValueAsBytes(value)));
+    }
+}
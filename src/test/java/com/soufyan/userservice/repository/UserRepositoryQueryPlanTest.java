@@ -0,0 +1,141 @@
+package com.soufyan.userservice.repository;
+
+import com.soufyan.userservice.dto.UserSearchCriteria;
+import com.soufyan.userservice.enums.Role;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the SQL Hibernate generates for hot repository queries through H2's
+ * EXPLAIN and checks the plan uses an index instead of scanning the table.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.soufyan.userservice.repository.UserRepositoryQueryPlanTest$RecordingInspector"
+})
+class UserRepositoryQueryPlanTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void findByEmail_UsesEmailIndex() {
+        userRepository.findByEmail("john@example.com");
+
+        String plan = explain(lastStatement(), "john@example.com");
+
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.contains(": EMAIL = "), plan);
+    }
+
+    @Test
+    void search_EveryFilterCombinationSeeksItsIndexInOrder() {
+        for (String country : new String[] {null, "USA"}) {
+            for (String city : new String[] {null, "Boston"}) {
+                if (city != null && country == null) {
+                    continue;
+                }
+                for (Role role : new Role[] {null, Role.ADMIN}) {
+                    for (String name : new String[] {null, "Do"}) {
+                        for (boolean sortByName : new boolean[] {false, true}) {
+                            for (boolean firstPage : new boolean[] {true, false}) {
+                                UserSearchCriteria criteria = new UserSearchCriteria(country, city, role, name, sortByName,
+                                        firstPage ? null : "Doe", firstPage ? 0 : 5);
+                                if (!sortByName && criteria.hasFilters()) {
+                                    continue;
+                                }
+                                String plan = explainSearch(criteria);
+                                assertTrue(plan.contains("/* PUBLIC." + expectedIndex(criteria)), plan);
+                                // Rows come out of the index in page order, so no sort and the limit stops the read
+                                assertTrue(plan.contains("/* index sorted */"), plan);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void search_NamePrefixSeeksTheNameIndex() {
+        assertTrue(explainSearch(new UserSearchCriteria(null, null, null, "Do", true, null, 0))
+                .contains("IDX_USERS_LAST_NAME: LAST_NAME >= 'Do'"));
+        assertTrue(explainSearch(new UserSearchCriteria("USA", "Boston", null, "Do", true, "Doe", 5))
+                .contains("IDX_USERS_COUNTRY_CITY_LAST_NAME: COUNTRY = ?1\n        AND CITY = ?2"));
+    }
+
+    // The access path UserRepositoryCustom#search is designed around for each combination
+    private static String expectedIndex(UserSearchCriteria criteria) {
+        if (criteria.getCity() != null) {
+            return criteria.getRole() != null ? "IDX_USERS_COUNTRY_CITY_ROLE_LAST_NAME" : "IDX_USERS_COUNTRY_CITY_LAST_NAME";
+        }
+        if (criteria.getCountry() != null) {
+            return criteria.getRole() != null ? "IDX_USERS_COUNTRY_ROLE_LAST_NAME" : "IDX_USERS_COUNTRY_LAST_NAME";
+        }
+        if (criteria.getRole() != null) {
+            return "IDX_USERS_ROLE_LAST_NAME";
+        }
+        return criteria.isSortByName() ? "IDX_USERS_LAST_NAME" : "PRIMARY_KEY_";
+    }
+
+    // Binds the parameters in the order the repository adds its predicates
+    private String explainSearch(UserSearchCriteria criteria) {
+        userRepository.search(criteria, 11);
+        List<Object> args = new ArrayList<>();
+        Stream.of(criteria.getCountry(), criteria.getCity(), criteria.getRole() == null ? null : criteria.getRole().name(),
+                criteria.getNamePrefix() == null ? null : criteria.getNamePrefix() + "%").filter(Objects::nonNull).forEach(args::add);
+        if (criteria.isSortByName() && criteria.getAfterLastName() != null) {
+            args.add(criteria.getAfterLastName());
+        }
+        if (!criteria.isSortByName() || criteria.getAfterLastName() != null) {
+            args.add(criteria.getAfterId());
+        }
+        args.add(11);
+        return explain(lastStatement(), args.toArray());
+    }
+
+    private String explain(String sql, Object... args) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+    }
+
+    private static String lastStatement() {
+        List<String> statements = RecordingInspector.STATEMENTS;
+        assertFalse(statements.isEmpty(), "no SQL was executed");
+        return statements.get(statements.size() - 1);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.soufyan.userservice.service;
+
+import com.soufyan.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private EmailFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new EmailFilter(true, 10_000, 0.01, 100, userRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void isDefinitelyNew_BeforeBuild_AlwaysFallsBackToLookup() {
+        assertFalse(filter.isDefinitelyNew("john@example.com"));
+    }
+
+    @Test
+    void build_LoadsExistingEmails() {
+        when(userRepository.streamAllEmails(anyInt())).thenReturn(Stream.of("john@example.com", "jane@example.com"));
+
+        filter.build();
+
+        assertFalse(filter.isDefinitelyNew("john@example.com"));
+        assertFalse(filter.isDefinitelyNew("jane@example.com"));
+        assertTrue(filter.isDefinitelyNew("new@example.com"));
+    }
+
+    @Test
+    void add_SeenAfterBuild() {
+        when(userRepository.streamAllEmails(anyInt())).thenReturn(Stream.of("john@example.com"));
+        filter.build();
+
+        assertTrue(filter.isDefinitelyNew("jane@example.com"));
+        filter.add("jane@example.com");
+
+        assertFalse(filter.isDefinitelyNew("jane@example.com"));
+        assertFalse(filter.isDefinitelyNew("john@example.com"));
+    }
+
+    @Test
+    void isDefinitelyNew_AtCapacity_StaysNearTargetFalsePositiveRate() {
+        when(userRepository.streamAllEmails(anyInt()))
+                .thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "user" + i + "@example.com"));
+        filter.build();
+
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> !filter.isDefinitelyNew("other" + i + "@example.org"))
+                .count();
+
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.002);
+    }
+
+    @Test
+    void isDefinitelyNew_Disabled_AlwaysFallsBackToLookup() {
+        EmailFilter disabled = new EmailFilter(false, 10_000, 0.01, 100, userRepository, new SimpleMeterRegistry());
+        disabled.build();
+
+        assertFalse(disabled.isDefinitelyNew("new@example.com"));
+    }
+}
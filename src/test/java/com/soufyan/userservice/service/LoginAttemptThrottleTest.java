@@ -0,0 +1,74 @@
+package com.soufyan.userservice.service;
+
+import com.soufyan.userservice.exception.TooManyLoginAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptThrottleTest {
+
+    private LoginAttemptThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new LoginAttemptThrottle(true, 2, 4, Duration.ofMinutes(1), Duration.ofMinutes(10),
+                Duration.ofMinutes(15), 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void checkAllowed_WithinFreeAttempts_Passes() {
+        throttle.recordFailure("john@example.com", "10.0.0.1");
+        throttle.recordFailure("john@example.com", "10.0.0.1");
+
+        assertDoesNotThrow(() -> throttle.checkAllowed("john@example.com", "10.0.0.1"));
+    }
+
+    @Test
+    void checkAllowed_EmailOverLimit_ThrowsWithRetryAfter() {
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("john@example.com", "10.0.0." + i);
+        }
+
+        TooManyLoginAttemptsException e = assertThrows(TooManyLoginAttemptsException.class,
+                () -> throttle.checkAllowed("john@example.com", "10.0.0.9"));
+        assertTrue(e.getRetryAfterSeconds() > 0 && e.getRetryAfterSeconds() <= 60);
+        assertDoesNotThrow(() -> throttle.checkAllowed("jane@example.com", "10.0.0.9"));
+    }
+
+    @Test
+    void checkAllowed_BackoffDoublesPerFailure() {
+        for (int i = 0; i < 4; i++) {
+            throttle.recordFailure("john@example.com", "10.0.0." + i);
+        }
+
+        TooManyLoginAttemptsException e = assertThrows(TooManyLoginAttemptsException.class,
+                () -> throttle.checkAllowed("john@example.com", "10.0.0.9"));
+        assertTrue(e.getRetryAfterSeconds() > 60 && e.getRetryAfterSeconds() <= 120);
+    }
+
+    @Test
+    void checkAllowed_IpOverLimit_BlocksOtherEmails() {
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> throttle.checkAllowed("someone@example.com", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.checkAllowed("someone@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void recordSuccess_ResetsEmailCounter() {
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("john@example.com", "10.0.0." + i);
+        }
+
+        throttle.recordSuccess("john@example.com");
+
+        assertDoesNotThrow(() -> throttle.checkAllowed("john@example.com", "10.0.0.9"));
+    }
+}
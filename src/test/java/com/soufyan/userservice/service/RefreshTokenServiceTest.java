@@ -0,0 +1,92 @@
+package com.soufyan.userservice.service;
+
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.exception.UnauthorizedException;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.RefreshTokenRepository;
+import com.soufyan.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against H2: reuse detection depends on the conditional update and on
+ * the revocation being committed although the call fails.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPhone("+1234567890");
+        user.setPassword("encodedPassword");
+        user.setCountry("USA");
+        user.setCity("New York");
+        user.setStreet("123 Main St");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void rotate_ReturnsUserAndNewToken() {
+        String first = refreshTokenService.issue(user);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        assertEquals(user.getId(), rotation.user().getId());
+        assertEquals(user.getEmail(), rotation.user().getEmail());
+        assertNotEquals(first, rotation.refreshToken());
+        assertNotNull(refreshTokenService.rotate(rotation.refreshToken()).refreshToken());
+    }
+
+    @Test
+    void rotate_ReusedToken_RevokesWholeFamily() {
+        String first = refreshTokenService.issue(user);
+        String second = refreshTokenService.rotate(first).refreshToken();
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate(first));
+        // The legitimate holder is logged out too: the leaked token may be the one in use
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate(second));
+        assertTrue(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(second)).isEmpty());
+    }
+
+    @Test
+    void rotate_UnknownToken_IsRejected() {
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("not-a-refresh-token"));
+    }
+
+    @Test
+    void deleteUser_RemovesTheirTokens() {
+        String token = refreshTokenService.issue(user);
+
+        userRepository.deleteById(user.getId());
+
+        assertTrue(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(token)).isEmpty());
+    }
+}
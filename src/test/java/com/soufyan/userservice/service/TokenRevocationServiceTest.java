@@ -0,0 +1,77 @@
+package com.soufyan.userservice.service;
+
+import com.soufyan.userservice.config.JwtClaims;
+import com.soufyan.userservice.config.JwtRevocationList;
+import com.soufyan.userservice.config.JwtUtil;
+import com.soufyan.userservice.repository.RefreshTokenRepository;
+import com.soufyan.userservice.repository.RevokedTokenRepository;
+import com.soufyan.userservice.repository.UserTokenCutoffRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private JwtRevocationList revocationList;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserTokenCutoffRepository userTokenCutoffRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Test
+    void revoke_RejectsThatTokenOnly() {
+        JwtClaims revoked = claims(1L);
+        JwtClaims other = claims(1L);
+
+        tokenRevocationService.revoke(revoked);
+
+        assertTrue(revocationList.isRevoked(revoked));
+        assertFalse(revocationList.isRevoked(other));
+    }
+
+    @Test
+    void revocations_AreReloadedOnStartup() {
+        long userId = ThreadLocalRandom.current().nextLong(1_000_000, Long.MAX_VALUE);
+        JwtClaims single = claims(2L);
+        JwtClaims ofRevokedUser = claims(userId);
+        tokenRevocationService.revoke(single);
+        tokenRevocationService.revokeAllForUser(userId);
+
+        // A fresh instance starts with an empty list and must rebuild it from the tables
+        JwtRevocationList restarted = new JwtRevocationList(new SimpleMeterRegistry());
+        new TokenRevocationService(revokedTokenRepository, userTokenCutoffRepository, refreshTokenRepository,
+                restarted, 3600000).sync();
+
+        assertTrue(restarted.isRevoked(single));
+        assertTrue(restarted.isRevoked(ofRevokedUser));
+        assertFalse(restarted.isRevoked(claims(3L)));
+    }
+
+    private JwtClaims claims(long userId) {
+        return jwtUtil.parseClaims(jwtUtil.generateToken("user" + userId + "@example.com", userId, "USER"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.soufyan.userservice.service;
+
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+
+    private final UserCache cache = new UserCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Test
+    void getByEmail_NeverSharesAnInstance() {
+        User user = new User(1L, "John", "Doe", "john@example.com", "+1234567890", "old-hash",
+                "USA", "New York", "123 Main St", Role.USER, 0);
+        cache.put(user);
+        user.setPassword("changed-by-writer");
+
+        User first = cache.getByEmail("john@example.com").orElseThrow();
+        first.setPassword("changed-by-reader");
+        User second = cache.getByEmail("john@example.com").orElseThrow();
+
+        assertNotSame(first, second);
+        assertEquals("old-hash", second.getPassword());
+    }
+}
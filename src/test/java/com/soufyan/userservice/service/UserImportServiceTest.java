@@ -0,0 +1,168 @@
+package com.soufyan.userservice.service;
+
+import com.soufyan.userservice.dto.ImportResultDto;
+import com.soufyan.userservice.dto.RegisterUserDto;
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.exception.PasswordHashingUnavailableException;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.UserRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private EmailFilter emailFilter;
+
+    private UserImportService importService;
+
+    private ExecutorService hashingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        hashingExecutor = Executors.newFixedThreadPool(2);
+        importService = new UserImportService(userRepository, passwordEncoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), emailFilter, hashingExecutor);
+        lenient().when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    @Test
+    void importUsers_ValidRows_InsertedInOneBatch() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+
+        ImportResultDto result = importService.importUsers(rows(row("a@example.com"), row("b@example.com")));
+
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getFailed());
+        ArgumentCaptor<List<User>> batch = ArgumentCaptor.captor();
+        verify(userRepository).insertAll(batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertEquals("encodedPassword", batch.getValue().get(0).getPassword());
+    }
+
+    @Test
+    void importUsers_InvalidAndDuplicateRows_ReportedWithoutAborting() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of("taken@example.com"));
+        RegisterUserDto invalid = row("not-an-email");
+
+        ImportResultDto result = importService.importUsers(rows(
+                row("a@example.com"), invalid, row("taken@example.com"), row("a@example.com"), row("b@example.com")));
+
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(2L, 3L, 4L), result.getErrors().stream().map(e -> e.getRow()).sorted().toList());
+    }
+
+    @Test
+    void importUsers_BatchConflict_FallsBackToRowByRow() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        doThrow(new DataIntegrityViolationException("duplicate"))
+                .when(userRepository).insertAll(argThat(users -> users.size() > 1
+                        || users.get(0).getEmail().equals("raced@example.com")));
+
+        ImportResultDto result = importService.importUsers(rows(row("a@example.com"), row("raced@example.com")));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals("raced@example.com", result.getErrors().get(0).getEmail());
+    }
+
+    @Test
+    void importUsers_HashesNoMoreRowsAtOnceThanItsExecutorHasThreads() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return "encodedPassword";
+        });
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+
+        ImportResultDto result = importService.importUsers(rows(
+                row("a@example.com"), row("b@example.com"), row("c@example.com"), row("d@example.com"), row("e@example.com")));
+
+        assertEquals(5, result.getImported());
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void importUsers_HashingBusy_ReportsRowsAsRetryable() {
+        when(passwordEncoder.encode(anyString())).thenThrow(new PasswordHashingUnavailableException("busy"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+
+        ImportResultDto result = importService.importUsers(rows(row("a@example.com")));
+
+        assertEquals(0, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getRetryable());
+        assertTrue(result.getErrors().get(0).getMessage().contains("submit it again"));
+        verify(userRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void importUsers_MalformedInput_StopsAndReports() {
+        Iterator<RegisterUserDto> broken = new Iterator<>() {
+            private int calls;
+
+            @Override
+            public boolean hasNext() {
+                if (calls++ > 0) {
+                    throw new IllegalStateException("unexpected token");
+                }
+                return true;
+            }
+
+            @Override
+            public RegisterUserDto next() {
+                return row("a@example.com");
+            }
+        };
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+
+        ImportResultDto result = importService.importUsers(broken);
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+    }
+
+    private static Iterator<RegisterUserDto> rows(RegisterUserDto... rows) {
+        return List.of(rows).iterator();
+    }
+
+    private static RegisterUserDto row(String email) {
+        return new RegisterUserDto("Jane", "Smith", email, "+9876543210", "password123", "Canada", "Toronto", "456 Oak Ave", Role.USER);
+    }
+}
@@ -0,0 +1,115 @@
+package com.soufyan.userservice.service;
+
+import com.soufyan.userservice.dto.PatchUserDto;
+import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.exception.ValidationException;
+import com.soufyan.userservice.model.User;
+import com.soufyan.userservice.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the UPDATE statements Hibernate sends for profile patches.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.soufyan.userservice.service.UserServicePatchSqlTest$RecordingInspector"
+})
+class UserServicePatchSqlTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPhone("+1234567890");
+        user.setPassword("encodedPassword");
+        user.setCountry("USA");
+        user.setCity("New York");
+        user.setStreet("123 Main St");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void patch_UpdatesOnlyChangedColumns() {
+        PatchUserDto patch = new PatchUserDto();
+        patch.setCity("Boston");
+        patch.setCountry("USA");
+
+        User patched = userService.patchUser(user.getId(), patch, null);
+
+        List<String> updates = updates();
+        assertEquals(1, updates.size(), updates::toString);
+        String setClause = updates.get(0).substring(0, updates.get(0).indexOf(" where "));
+        assertTrue(setClause.contains("city"), setClause);
+        assertFalse(setClause.contains("country"), setClause);
+        assertFalse(setClause.contains("first_name"), setClause);
+        assertFalse(setClause.contains("password"), setClause);
+        assertEquals(user.getVersion() + 1, patched.getVersion());
+    }
+
+    @Test
+    void patch_WithCurrentValues_WritesNothing() {
+        PatchUserDto patch = new PatchUserDto();
+        patch.setFirstName("John");
+        patch.setCity("New York");
+
+        User patched = userService.patchUser(user.getId(), patch, null);
+
+        assertTrue(updates().isEmpty(), updates()::toString);
+        assertEquals(user.getVersion(), patched.getVersion());
+    }
+
+    @Test
+    void patch_EmailTakenByUserTheFilterNeverSaw_RejectedAsValidation() {
+        // Saved past the service, so the email filter still reports the address as new
+        User other = new User(0L, "Jane", "Doe", UUID.randomUUID() + "@example.com", "+1234567890", "encodedPassword",
+                "USA", "Boston", "1 Main St", Role.USER, 0);
+        other = userRepository.save(other);
+        PatchUserDto patch = new PatchUserDto();
+        patch.setEmail(other.getEmail());
+
+        assertThrows(ValidationException.class, () -> userService.patchUser(user.getId(), patch, null));
+    }
+
+    private static List<String> updates() {
+        return RecordingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.startsWith("update users"))
+                .toList();
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
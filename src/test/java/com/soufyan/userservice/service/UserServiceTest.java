@@ -1,21 +1,32 @@
 package com.soufyan.userservice.service;
 
+import com.soufyan.userservice.exception.PreconditionFailedException;
 import com.soufyan.userservice.exception.UnauthorizedException;
 import com.soufyan.userservice.exception.UserNotFoundException;
 import com.soufyan.userservice.exception.ValidationException;
+import com.soufyan.userservice.config.ReplicaRoutingDataSource;
 import com.soufyan.userservice.dto.DeleteUserDto;
 import com.soufyan.userservice.dto.LoginUserDto;
+import com.soufyan.userservice.dto.PatchUserDto;
 import com.soufyan.userservice.dto.RegisterUserDto;
 import com.soufyan.userservice.dto.UpdateUserDto;
+import com.soufyan.userservice.dto.UserDto;
+import com.soufyan.userservice.dto.UserSearchCriteria;
 import com.soufyan.userservice.enums.Role;
+import com.soufyan.userservice.mapper.UserMapper;
 import com.soufyan.userservice.model.User;
 import com.soufyan.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -24,8 +35,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,6 +55,21 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private EmailFilter emailFilter;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private UserService userService;
 
@@ -95,6 +125,27 @@ class UserServiceTest {
         assertEquals("john@example.com", result.getEmail());
     }
 
+    @Test
+    void authenticateUser_TimesPasswordCheck() {
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+
+        userService.authenticateUser(loginDto);
+
+        assertEquals(1, meterRegistry.get("user.service.bcrypt").tag("method", "authenticate").timer().count());
+        assertEquals(0, meterRegistry.get("user.service.bcrypt").tag("method", "rehash").timer().count());
+    }
+
+    @Test
+    void authenticateUser_MixedCaseEmail_LooksUpCanonicalForm() {
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+
+        User result = userService.authenticateUser(new LoginUserDto(" John@Example.COM ", "password123"));
+
+        assertSame(testUser, result);
+    }
+
     @Test
     void authenticateUser_InvalidEmail_ThrowsException() {
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
@@ -112,6 +163,32 @@ class UserServiceTest {
             () -> userService.authenticateUser(loginDto));
     }
 
+    @Test
+    void authenticateUser_OutdatedHash_IsRehashed() {
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("{bcrypt}rehashedPassword");
+        when(userRepository.updatePasswordIfUnchanged(1L, "encodedPassword", "{bcrypt}rehashedPassword")).thenReturn(1);
+
+        User result = userService.authenticateUser(loginDto);
+
+        assertEquals("{bcrypt}rehashedPassword", result.getPassword());
+        verify(userRepository).updatePasswordIfUnchanged(1L, "encodedPassword", "{bcrypt}rehashedPassword");
+    }
+
+    @Test
+    void authenticateUser_CurrentHash_IsNotRehashed() {
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(false);
+
+        userService.authenticateUser(loginDto);
+
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).updatePasswordIfUnchanged(anyLong(), anyString(), anyString());
+    }
+
     @Test
     void registerUser_Success() {
         when(userRepository.findByEmail("jane@example.com")).thenReturn(Optional.empty());
@@ -124,6 +201,29 @@ class UserServiceTest {
         verify(userRepository).save(any(User.class));
     }
 
+    @Test
+    void registerUser_RequestedAdmin_CreatesPlainUser() {
+        registerDto.setRole(Role.ADMIN);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        User result = userService.registerUser(registerDto);
+
+        assertEquals(Role.USER, result.getRole());
+    }
+
+    @Test
+    void registerUser_EmailDefinitelyNew_SkipsLookup() {
+        when(emailFilter.isDefinitelyNew("jane@example.com")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        userService.registerUser(registerDto);
+
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(emailFilter).add("jane@example.com");
+    }
+
     @Test
     void registerUser_EmailExists_ThrowsException() {
         when(userRepository.findByEmail("jane@example.com")).thenReturn(Optional.of(testUser));
@@ -139,19 +239,85 @@ class UserServiceTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
-        User result = userService.updateUser(1L, updateDto);
+        User result = userService.updateUser(1L, updateDto, null);
 
         assertNotNull(result);
         verify(userRepository).save(testUser);
     }
 
+    @Test
+    void updateUser_EmailChanged_EvictsOldAndNewEmail() {
+        UpdateUserDto updateDto = new UpdateUserDto("John", "Doe", "johnny@example.com", "+1234567890", "USA", "New York", "123 Main St");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findByEmail("johnny@example.com")).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        userService.updateUser(1L, updateDto, null);
+
+        verify(userCache).evict(1L, "john@example.com", "johnny@example.com");
+        verify(emailFilter).add("johnny@example.com");
+    }
+
+    @Test
+    void updateUser_StaleVersion_ThrowsPreconditionFailed() {
+        UpdateUserDto updateDto = new UpdateUserDto("UpdatedName", "Doe", "john@example.com", "+1111111111", "USA", "New York", "123 Main St");
+        testUser.setVersion(3);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        assertThrows(PreconditionFailedException.class,
+            () -> userService.updateUser(1L, updateDto, 2L));
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void patchUser_OnlyGivenFieldsChange() {
+        PatchUserDto patch = new PatchUserDto();
+        patch.setCity("Boston");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        userService.patchUser(1L, patch, null);
+
+        assertEquals("Boston", testUser.getCity());
+        assertEquals("John", testUser.getFirstName());
+        assertEquals("john@example.com", testUser.getEmail());
+        verify(userCache).evict(1L, "john@example.com", "john@example.com");
+    }
+
+    @Test
+    void patchUser_NoChange_SkipsWrite() {
+        PatchUserDto patch = new PatchUserDto();
+        patch.setCity("New York");
+        patch.setEmail("John@Example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        userService.patchUser(1L, patch, null);
+
+        verify(userRepository, never()).save(any(User.class));
+        verify(userCache, never()).evict(anyLong(), any(String[].class));
+    }
+
+    @Test
+    void patchUser_EmailTakenDespiteFilter_ThrowsValidation() {
+        PatchUserDto patch = new PatchUserDto();
+        patch.setEmail("taken@example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(emailFilter.isDefinitelyNew("taken@example.com")).thenReturn(true);
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        doThrow(new DataIntegrityViolationException("users_email_key")).when(userRepository).flush();
+
+        assertThrows(ValidationException.class, () -> userService.patchUser(1L, patch, null));
+        verify(userCache, never()).evict(anyLong(), any(String[].class));
+    }
+
     @Test
     void updateUser_NotFound_ThrowsException() {
         UpdateUserDto updateDto = new UpdateUserDto("Test", "User", "test@example.com", "+1234567890", "USA", "NYC", "Street");
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, 
-            () -> userService.updateUser(999L, updateDto));
+            () -> userService.updateUser(999L, updateDto, null));
     }
 
     @Test
@@ -166,22 +332,53 @@ class UserServiceTest {
         when(userRepository.findByEmail("existing@example.com")).thenReturn(Optional.of(existingUser));
 
         assertThrows(ValidationException.class, 
-            () -> userService.updateUser(1L, updateDto));
+            () -> userService.updateUser(1L, updateDto, null));
     }
 
     @Test
     void loadUserById_Success() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(UserMapper.toDto(testUser)));
 
-        User result = userService.loadUserById(1L);
+        UserDto result = userService.loadUserById(1L);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void loadUserById_CacheHit_SkipsRepository() {
+        UserDto cached = UserMapper.toDto(testUser);
+        when(userCache.getById(1L)).thenReturn(Optional.of(cached));
+
+        UserDto result = userService.loadUserById(1L);
+
+        assertSame(cached, result);
+        verify(userRepository, never()).findDtoById(anyLong());
+    }
+
+    @Test
+    void loadUserById_CacheMiss_PopulatesCache() {
+        UserDto loaded = UserMapper.toDto(testUser);
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(loaded));
+
+        userService.loadUserById(1L);
+
+        verify(userCache).put(loaded);
+    }
+
+    @Test
+    void getUserVersion_CacheHit_SkipsRepository() {
+        testUser.setVersion(4);
+        when(userCache.getById(1L)).thenReturn(Optional.of(UserMapper.toDto(testUser)));
+
+        assertEquals(4L, userService.getUserVersion(1L));
+        verify(userRepository, never()).findVersionById(anyLong());
     }
 
     @Test
     void loadUserById_NotFound_ThrowsException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, 
             () -> userService.loadUserById(999L));
@@ -190,13 +387,53 @@ class UserServiceTest {
     @Test
     void getAllUsers_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<User> page = new PageImpl<>(Arrays.asList(testUser));
-        when(userRepository.findAll(pageable)).thenReturn(page);
+        Page<UserDto> page = new PageImpl<>(Arrays.asList(UserMapper.toDto(testUser)));
+        when(userRepository.findAllDto(pageable)).thenReturn(page);
 
-        Page<User> result = userService.getAllUsers(pageable);
+        Page<UserDto> result = userService.getAllUsers(pageable);
 
         assertEquals(1, result.getTotalElements());
-        verify(userRepository).findAll(pageable);
+        verify(userRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void getUsersAfter_SeeksOnId() {
+        when(userRepository.findDtoByIdGreaterThan(5L, Limit.of(11))).thenReturn(List.of(UserMapper.toDto(testUser)));
+
+        List<UserDto> result = userService.getUsersAfter(5L, 11);
+
+        assertEquals(1, result.size());
+        verify(userRepository, never()).findAllDto(any(Pageable.class));
+    }
+
+    @Test
+    void searchUsers_CityWithoutCountry_ThrowsException() {
+        UserSearchCriteria criteria = new UserSearchCriteria(null, "Boston", null, null, false, null, 0);
+
+        assertThrows(ValidationException.class, () -> userService.searchUsers(criteria, 11));
+        verify(userRepository, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void searchUsers_FilteredIdOrder_ThrowsException() {
+        UserSearchCriteria criteria = new UserSearchCriteria(null, null, Role.ADMIN, null, false, null, 0);
+
+        assertThrows(ValidationException.class, () -> userService.searchUsers(criteria, 11));
+        verify(userRepository, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void exportUsers_StreamsEveryRowAndClosesCursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<UserDto> rows = Stream.of(UserMapper.toDto(testUser), UserMapper.toDto(testUser))
+            .onClose(() -> closed.set(true));
+        when(userRepository.streamAllAsDto(anyInt())).thenReturn(rows);
+
+        List<UserDto> exported = new ArrayList<>();
+        userService.exportUsers(exported::add);
+
+        assertEquals(2, exported.size());
+        assertTrue(closed.get());
     }
 
     @Test
@@ -210,6 +447,8 @@ class UserServiceTest {
 
         assertNotNull(result);
         verify(userRepository).delete(testUser);
+        verify(tokenRevocationService).revokeAllForUser(1L);
+        verify(userCache).evict(1L, "john@example.com");
     }
 
     @Test